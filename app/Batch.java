@@ -0,0 +1,78 @@
+package app;
+
+import domain.ChipColor;
+import domain.Game;
+import domain.GameSnapshotCodec;
+import domain.MoveResult;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+
+// Headless play for scripts and pipelines: one command per input line, one
+// reply per command. Uses only the domain and storage layers, so no AWT or
+// Swing class is loaded.
+//
+// Commands (the move journal's notation, plus P):
+//   T <color>   take a chip, color one of R B G K W
+//   B <card>    buy the card with that id
+//   N           start a new game
+//   P           print the position as a text snapshot
+// Blank lines and lines starting with '#' are skipped.
+//
+// Replies: "ok", "error <RESULT>: <message>" for a rejected move, or
+// "error BAD_COMMAND: ..." for a line that is not a command. A move that ends
+// the game is followed by "game over <winner>", 0 for a tie.
+final class Batch {
+    private final Game game;
+    private final PrintStream out;
+    private final GameSnapshotCodec codec = new GameSnapshotCodec(GameSnapshotCodec.Format.TEXT);
+    private int errors;
+
+    private Batch(Game game, PrintStream out) {
+        this.game = game;
+        this.out = out;
+    }
+
+    // Runs every command in in; returns the exit status, 1 if any was rejected
+    static int run(Game game, BufferedReader in, PrintStream out) throws IOException {
+        Batch b = new Batch(game, out);
+        for (String line = in.readLine(); line != null; line = in.readLine()) {
+            b.command(line.trim());
+            if (!in.ready()) out.flush(); // reply before blocking on the next line
+        }
+        out.flush();
+        return b.errors == 0 ? 0 : 1;
+    }
+
+    private void command(String line) {
+        if (line.isEmpty() || line.startsWith("#")) return;
+        if (line.equals("N")) {
+            game.startNewGame();
+            out.println("ok");
+        } else if (line.equals("P")) {
+            out.print(codec.encodeText(game));
+        } else if (line.startsWith("T ") && line.length() == 3 && isColor(line.charAt(2))) {
+            reply(game.tryTakeChip(ChipColor.fromChar(line.charAt(2))));
+        } else if (line.startsWith("B ") && line.length() > 2) {
+            reply(game.tryBuyCard(line.substring(2).trim()));
+        } else {
+            errors++;
+            out.println("error BAD_COMMAND: " + line);
+        }
+    }
+
+    private void reply(MoveResult r) {
+        if (!r.isOk()) {
+            errors++;
+            out.println("error " + r + ": " + r.message());
+            return;
+        }
+        out.println("ok");
+        if (game.isGameOver()) out.println("game over " + game.getWinnerPlayerNumber());
+    }
+
+    private static boolean isColor(char c) {
+        return "RBGKWrbgkw".indexOf(c) >= 0;
+    }
+}
@@ -0,0 +1,16 @@
+package app;
+
+import domain.Game;
+import domain.MctsPlayer;
+import presentation.SplendorFrame;
+
+import javax.swing.SwingUtilities;
+
+// The only class in app that touches Swing, so batch runs never load it.
+final class Interactive {
+    private Interactive() { }
+
+    static void launch(Game game, MctsPlayer ai, int aiSeat, long aiMillis) {
+        SwingUtilities.invokeLater(() -> new SplendorFrame(game, ai, aiSeat, aiMillis));
+    }
+}
@@ -1,19 +1,103 @@
 package app;
 
+import domain.CardCatalog;
 import domain.Game;
+import domain.MctsPlayer;
+import domain.SnapshotStore;
+import metrics.Metrics;
 import storage.*;
-import presentation.SplendorFrame;
 
+import java.io.*;
+import java.nio.file.Files;
 import java.nio.file.Path;
 
+// java app.Main                 the Swing UI
+// java app.Main --batch [file]  plays the commands in file, or stdin, headless (see Batch)
 public class Main {
-    public static void main(String[] args) {
-        KeyValueStore kv = new FileKeyValueStore(Path.of("data", "minisplendor.properties"));
-        var snapshotStore = new DomainSnapshotStore(kv);
+    public static void main(String[] args) throws IOException {
+        boolean batch = args.length > 0 && args[0].equals("--batch");
+        if (!batch) Metrics.registerMBean(); // JMX costs batch runs more startup than it is worth
+        Metrics.startPeriodicDump(Long.getLong("minisplendor.metricsDumpMillis", 0), System.err);
+
+        KeyValueStore kv = new InstrumentedKeyValueStore(openStore(Path.of("data")));
+        SnapshotStore snapshotStore = openSnapshotStore(kv, Path.of("data"));
+        var historyStore = new FileGameHistoryStore(Path.of("data", "minisplendor.history"));
+        var journal = new FileMoveJournal(Path.of("data", "minisplendor.journal"));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            // The async store drains its pending snapshot into kv first
+            snapshotStore.close();
+            journal.close();
+            historyStore.close();
+            kv.close();
+        }, "minisplendor-shutdown"));
+
         var leaderboardStore = new DomainLeaderboardStore(kv);
 
-        Game game = Game.loadOrNew(snapshotStore, leaderboardStore);
+        Game game = Game.loadOrNew(snapshotStore, leaderboardStore, journal,
+                Integer.getInteger("minisplendor.checkpointEvery", 25), openDeck());
+        game.attachHistory(historyStore);
+
+        if (batch) {
+            // System.out flushes on every line; Batch flushes when it runs out of input
+            PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16));
+            int status;
+            try (BufferedReader in = args.length > 1
+                    ? Files.newBufferedReader(Path.of(args[1]))
+                    : new BufferedReader(new InputStreamReader(System.in))) {
+                status = Batch.run(game, in, out);
+            }
+            System.exit(status); // runs the shutdown hook that closes the stores
+        }
+
+        // -Dminisplendor.ai=2 lets the computer play seat 2 (or 1)
+        int aiSeat = Integer.getInteger("minisplendor.ai", 0) - 1;
+        MctsPlayer ai = aiSeat >= 0
+                ? new MctsPlayer(Runtime.getRuntime().availableProcessors(), System.nanoTime())
+                : null;
+        long aiMillis = Long.getLong("minisplendor.aiMillis", 1000);
+
+        Interactive.launch(game, ai, aiSeat, aiMillis);
+    }
+
+    // -Dminisplendor.deck=<file>  deal the cards defined in file, one id|vp|cost per
+    //                             line, instead of the standard 15; a saved game must
+    //                             be reopened with the same deck
+    private static CardCatalog openDeck() {
+        String file = System.getProperty("minisplendor.deck");
+        if (file == null) return CardCatalog.standard();
+        try {
+            return CardCatalog.fromDefinitions(Files.readAllLines(Path.of(file)));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read deck " + file, e);
+        }
+    }
+
+    // -Dminisplendor.snapshot=kv       (default) Base64 snapshot in the key-value store,
+    //                                 written by a background thread
+    // -Dminisplendor.snapshot=channel  raw binary snapshot written straight to snapshot/
+    private static SnapshotStore openSnapshotStore(KeyValueStore kv, Path dataDir) {
+        String mode = System.getProperty("minisplendor.snapshot", "kv");
+        return switch (mode) {
+            case "kv" -> new AsyncSnapshotStore(new DomainSnapshotStore(kv));
+            case "channel" -> new ChannelSnapshotStore(dataDir.resolve("snapshot"));
+            default -> throw new IllegalArgumentException("Unknown minisplendor.snapshot: " + mode);
+        };
+    }
 
-        javax.swing.SwingUtilities.invokeLater(() -> new SplendorFrame(game));
+    // -Dminisplendor.store=file      rewrite the properties file on every write
+    // -Dminisplendor.store=cached    (default) write-back cache, see minisplendor.flushMillis
+    // -Dminisplendor.store=mapped    memory-mapped store in minisplendor.kv
+    // -Dminisplendor.store=log       crash-safe log-structured store in kv-log/
+    private static KeyValueStore openStore(Path dataDir) {
+        Path properties = dataDir.resolve("minisplendor.properties");
+        String mode = System.getProperty("minisplendor.store", "cached");
+        return switch (mode) {
+            case "file" -> new FileKeyValueStore(properties);
+            case "cached" -> new WriteBackKeyValueStore(new FileKeyValueStore(properties),
+                    Long.getLong("minisplendor.flushMillis", 2000));
+            case "mapped" -> new MappedKeyValueStore(dataDir.resolve("minisplendor.kv"));
+            case "log" -> new LogKeyValueStore(dataDir.resolve("kv-log"));
+            default -> throw new IllegalArgumentException("Unknown minisplendor.store: " + mode);
+        };
     }
 }
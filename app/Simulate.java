@@ -0,0 +1,22 @@
+package app;
+
+import domain.SelfPlaySimulator;
+import domain.SimulationStats;
+
+// Headless self-play: java app.Simulate [games] [threads] [seed] [random|greedy]
+public class Simulate {
+    public static void main(String[] args) {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+        SelfPlaySimulator.Policy policy = args.length > 3 && args[3].equals("greedy")
+                ? SelfPlaySimulator.GREEDY : SelfPlaySimulator.RANDOM;
+
+        long start = System.nanoTime();
+        SimulationStats stats = new SelfPlaySimulator(games, threads, seed, policy).run();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.print(stats.format());
+        System.out.printf("%d threads, %.2f s, %.0f games/s%n", threads, seconds, stats.getGames() / seconds);
+    }
+}
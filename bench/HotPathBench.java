@@ -0,0 +1,235 @@
+package bench;
+
+import domain.*;
+import org.openjdk.jmh.annotations.*;
+import storage.FileKeyValueStore;
+import storage.WriteBackKeyValueStore;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// JMH micro-benchmarks for the codec, rules and storage hot paths.
+//
+// Build and run from the repository root:
+//   mvn -P bench package && java -jar target/benchmarks.jar -prof gc
+// Pass a regex to run a subset, e.g. java -jar target/benchmarks.jar 'deck.*' -prof gc.
+// -prof gc reports gc.alloc.rate.norm, the bytes allocated per op.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HotPathBench {
+    private Path tmp;
+
+    // A mid-game position: some chips on both sides, a few cards gone
+    private Game mid;
+    private GameSnapshotCodec text;
+    private GameSnapshotCodec binary;
+    private String textSnap;
+    private String binarySnap;
+
+    // One whole turn each, replayed from the same starting position
+    private Game start;
+    private Game rich;
+    private Game scratch;
+
+    private Player midPlayer;
+    private List<Card> midCards;
+
+    // A 4096-card deck: the index against a scan of every card, and a turn
+    // whose chip gains update affordability through the index
+    private CardCatalog bigDeck;
+    private Player bigPlayer;
+    private Game bigStart;
+    private Game bigScratch;
+
+    private Leaderboard lb;
+    private String lbData;
+
+    private FileKeyValueStore file;
+    private WriteBackKeyValueStore cached;
+
+    @Setup
+    public void setUp() throws IOException {
+        tmp = Files.createTempDirectory("minisplendor-bench");
+
+        mid = Game.newUnsaved();
+        for (String move : new String[] { "R", "B", "G", "K", "K", "B", "B", "R", "W", "G", "K", "K", "W", "W" }) {
+            mid.takeChip(ChipColor.fromChar(move.charAt(0)));
+        }
+        mid.buyCard("C1");
+        text = new GameSnapshotCodec(GameSnapshotCodec.Format.TEXT);
+        binary = new GameSnapshotCodec(GameSnapshotCodec.Format.BINARY);
+        textSnap = text.encode(mid);
+        binarySnap = binary.encode(mid);
+
+        start = Game.newUnsaved();
+        scratch = Game.newUnsaved();
+        rich = Game.newUnsaved();
+        rich.getPlayer(0).addChip(ChipColor.BLUE, 2);
+        rich.getPlayer(0).addChip(ChipColor.BLACK, 2);
+
+        midPlayer = mid.getPlayer(0);
+        midCards = mid.getBoard().getAvailable();
+
+        bigDeck = randomDeck(4096, 42);
+        Game big = Game.newUnsaved(bigDeck);
+        for (String move : new String[] { "R", "B", "G", "K", "K", "W" }) {
+            big.takeChip(ChipColor.fromChar(move.charAt(0)));
+        }
+        bigPlayer = big.getPlayer(0);
+        bigStart = Game.newUnsaved(bigDeck);
+        bigScratch = Game.newUnsaved(bigDeck);
+
+        lb = new Leaderboard();
+        for (int i = 0; i < 4; i++) lb.addEntry(10 + i, 12 - i, 1_770_000_000_000L + i);
+        lbData = lb.encode();
+
+        file = new FileKeyValueStore(tmp.resolve("file.properties"));
+        file.put("game.snapshot", textSnap);
+        cached = new WriteBackKeyValueStore(new FileKeyValueStore(tmp.resolve("cached.properties")), 0);
+        cached.put("game.snapshot", textSnap);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        cached.close();
+        file.close();
+        try (var files = Files.walk(tmp)) {
+            files.sorted((a, c) -> c.compareTo(a)).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    // ---------- Codec ----------
+
+    @Benchmark
+    public int codecEncodeText() {
+        return text.encode(mid).length();
+    }
+
+    @Benchmark
+    public int codecEncodeBinary() {
+        return binary.encode(mid).length();
+    }
+
+    @Benchmark
+    public int codecDecodeText() {
+        return text.decode(textSnap, null, null, new Leaderboard()).getCurrentPlayerNumber();
+    }
+
+    @Benchmark
+    public int codecDecodeBinary() {
+        return text.decode(binarySnap, null, null, new Leaderboard()).getCurrentPlayerNumber();
+    }
+
+    // ---------- Rules ----------
+
+    @Benchmark
+    public int gameTurnTakeChips() {
+        scratch.copyStateFrom(start);
+        scratch.takeChip(ChipColor.RED);
+        scratch.takeChip(ChipColor.BLUE);
+        scratch.takeChip(ChipColor.GREEN);
+        return scratch.getCurrentPlayerNumber();
+    }
+
+    @Benchmark
+    public int gameTurnBuyCard() {
+        scratch.copyStateFrom(rich);
+        scratch.buyCard("C1");
+        return scratch.getPlayer(0).getVictoryPoints();
+    }
+
+    @Benchmark
+    public int playerCanAfford() {
+        int n = 0;
+        for (Card c : midCards) if (midPlayer.canAfford(c)) n++;
+        return n;
+    }
+
+    // ---------- Large deck ----------
+
+    @Benchmark
+    public int deckAffordableScan() {
+        List<Card> out = new ArrayList<>();
+        for (Card c : bigDeck.cards()) if (bigPlayer.canAfford(c)) out.add(c);
+        return out.size();
+    }
+
+    @Benchmark
+    public int deckAffordableIndex() {
+        return bigDeck.costIndex().affordableBy(bigPlayer).size();
+    }
+
+    @Benchmark
+    public int deckCheapestWorth() {
+        return bigDeck.costIndex().cheapestWorth(4).getVictoryPoints();
+    }
+
+    @Benchmark
+    public int gameTurnTakeChipsDeck4096() {
+        bigScratch.copyStateFrom(bigStart);
+        bigScratch.takeChip(ChipColor.RED);
+        bigScratch.takeChip(ChipColor.BLUE);
+        bigScratch.takeChip(ChipColor.GREEN);
+        return bigScratch.getCurrentPlayerNumber();
+    }
+
+    // ---------- Leaderboard ----------
+
+    @Benchmark
+    public int leaderboardEncode() {
+        return lb.encode().length();
+    }
+
+    @Benchmark
+    public boolean leaderboardDecode() {
+        return Leaderboard.decode(lbData).isEmpty();
+    }
+
+    // ---------- Key-value stores ----------
+
+    @Benchmark
+    public void kvFilePut() {
+        file.put("game.snapshot", textSnap);
+    }
+
+    @Benchmark
+    public int kvFileGetOrNull() {
+        return file.getOrNull("game.snapshot").length();
+    }
+
+    @Benchmark
+    public void kvCachedPut() {
+        cached.put("game.snapshot", textSnap);
+    }
+
+    @Benchmark
+    public int kvCachedGetOrNull() {
+        return cached.getOrNull("game.snapshot").length();
+    }
+
+    // Cards costing 1..6 in each of two or three colors, worth 0..5 VP
+    private static CardCatalog randomDeck(int size, long seed) {
+        SplittableRandom rng = new SplittableRandom(seed);
+        ChipColor[] colors = ChipColor.values();
+        List<String> lines = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int picked = 0;
+            for (int n = 2 + rng.nextInt(2); Integer.bitCount(picked) < n; ) picked |= 1 << rng.nextInt(colors.length);
+            StringBuilder cost = new StringBuilder();
+            for (ChipColor c : colors) {
+                if ((picked & (1 << c.ordinal())) != 0) cost.append(c.toChar()).append(1 + rng.nextInt(6));
+            }
+            lines.add("D" + i + "|" + rng.nextInt(6) + "|" + cost);
+        }
+        return CardCatalog.fromDefinitions(lines);
+    }
+}
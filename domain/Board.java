@@ -5,27 +5,273 @@ package domain;
 import java.util.*;
 
 public class Board {
-    private final List<Card> available = new ArrayList<>();
+    // Cards keep the slot they were dealt into; a bought card leaves a null
+    // tombstone so the other slots (and the UI grid) do not shift.
+    private Card[] slots = new Card[0];
+    private Card[] deal = new Card[0]; // the cards as dealt; never modified, shared with GameState
+    private Map<String, Integer> slotById = new HashMap<>(); // fixed after a reset, shared by copies
+    private int liveCount = 0;
+    private long[] live = new long[0];
+    private List<Card> availableView; // rebuilt lazily after a change
+    private CardCostIndex costIndex; // set while slot i holds card i of the indexed deck
+
+    // Per tracked player: bitset over slots of the cards that player can afford,
+    // kept current as chips change so lookups never rescan the board.
+    private Player[] players = new Player[0];
+    private long[][] affordable = new long[0][];
 
     public List<Card> getAvailable() {
-        return Collections.unmodifiableList(available);
+        if (availableView == null) {
+            List<Card> cards = new ArrayList<>(liveCount);
+            for (Card c : slots) if (c != null) cards.add(c);
+            availableView = Collections.unmodifiableList(cards);
+        }
+        return availableView;
     }
 
     public Card getCardById(String id) {
-        for (Card c : available) if (c.getId().equals(id)) return c;
-        return null;
+        Integer slot = slotById.get(id);
+        return slot == null ? null : slots[slot];
     }
 
     public void removeCard(String id) {
-        available.removeIf(c -> c.getId().equals(id));
+        Integer slot = slotById.get(id);
+        if (slot == null || slots[slot] == null) return;
+        slots[slot] = null;
+        live[slot >>> 6] &= ~(1L << slot);
+        for (long[] mask : affordable) mask[slot >>> 6] &= ~(1L << slot);
+        liveCount--;
+        availableView = null;
     }
 
     public void resetWith15Cards(List<Card> cards) {
-        available.clear();
-        available.addAll(cards);
+        if (sameDeal(cards)) { // e.g. decoding catalog cards: keep the deal and its index
+            if (slots.length == deal.length) System.arraycopy(deal, 0, slots, 0, deal.length);
+            else slots = deal.clone();
+            Arrays.fill(live, 0);
+        } else {
+            deal = cards.toArray(new Card[0]);
+            slots = deal.clone();
+            slotById = new HashMap<>();
+            for (int i = 0; i < slots.length; i++) slotById.put(slots[i].getId(), i);
+            live = new long[(slots.length + 63) >>> 6];
+            costIndex = null;
+        }
+        for (int i = 0; i < slots.length; i++) live[i >>> 6] |= 1L << i;
+        liveCount = slots.length;
+        availableView = null;
+        rescanAll();
+    }
+
+    // Deals the whole deck face up, slot i holding deck card i, so
+    // affordability is looked up in the deck's CardCostIndex.
+    void deal(CardCatalog deck) {
+        useDeck(deck);
+        System.arraycopy(deal, 0, slots, 0, deal.length);
+        Arrays.fill(live, 0);
+        for (int i = 0; i < slots.length; i++) live[i >>> 6] |= 1L << i;
+        liveCount = slots.length;
+        availableView = null;
+        rescanAll();
+    }
+
+    // Deals the deck with only these cards left, each in its deck slot, as
+    // when loading a saved game. Returns false, changing nothing, unless the
+    // cards are deck cards in deck order.
+    boolean dealRemaining(CardCatalog deck, List<Card> remaining) {
+        int prev = -1;
+        for (int k = 0; k < remaining.size(); k++) {
+            Card c = remaining.get(k);
+            int i = deck.indexOf(c);
+            if (i <= prev || deck.get(i) != c) return false;
+            prev = i;
+        }
+        useDeck(deck);
+        Arrays.fill(slots, null);
+        Arrays.fill(live, 0);
+        for (int k = 0; k < remaining.size(); k++) {
+            Card c = remaining.get(k);
+            int i = deck.indexOf(c);
+            slots[i] = c;
+            live[i >>> 6] |= 1L << i;
+        }
+        liveCount = remaining.size();
+        availableView = null;
+        rescanAll();
+        return true;
+    }
+
+    private void useDeck(CardCatalog deck) {
+        Card[] cards = deck.cardArray();
+        if (deal != cards) {
+            deal = cards;
+            slotById = deck.idIndex();
+        }
+        if (slots.length != deal.length) slots = new Card[deal.length];
+        if (live.length != (deal.length + 63) >>> 6) live = new long[(deal.length + 63) >>> 6];
+        costIndex = deck.costIndex();
+    }
+
+    private boolean sameDeal(List<Card> cards) {
+        if (cards.size() != deal.length) return false;
+        for (int i = 0; i < deal.length; i++) if (cards.get(i) != deal[i]) return false;
+        return true;
     }
 
     public boolean isEmpty() {
-        return available.isEmpty();
+        return liveCount == 0;
+    }
+
+    // ---------- Slots ----------
+
+    public int slotCount() { return slots.length; }
+
+    // null once the card in that slot has been bought
+    public Card cardAt(int slot) { return slots[slot]; }
+
+    public int slotOf(String id) {
+        Integer slot = slotById.get(id);
+        return slot == null || slots[slot] == null ? -1 : slot;
+    }
+
+    // Copies cards, slots and masks; the tracked players stay this board's own.
+    void copyFrom(Board o) {
+        if (slots.length == o.slots.length) System.arraycopy(o.slots, 0, slots, 0, slots.length);
+        else slots = o.slots.clone();
+        slotById = o.slotById;
+        deal = o.deal;
+        costIndex = o.costIndex;
+        liveCount = o.liveCount;
+        live = copyInto(live, o.live);
+        for (int seat = 0; seat < affordable.length; seat++) {
+            affordable[seat] = copyInto(affordable[seat], o.affordable[seat]);
+        }
+        availableView = o.availableView; // immutable, same cards
+    }
+
+    Card[] dealtCards() { return deal; }
+    long[] liveWords() { return live; } // callers must not modify
+    int liveCount() { return liveCount; }
+
+    // Back to an earlier position of this or another deal. Players must be
+    // restored first: the affordability masks are rebuilt from their chips.
+    void restore(Card[] dealt, long[] liveWords, int count) {
+        if (dealt != deal) {
+            deal = dealt;
+            slotById = new HashMap<>();
+            for (int i = 0; i < dealt.length; i++) slotById.put(dealt[i].getId(), i);
+            costIndex = null;
+        }
+        if (slots.length != dealt.length) slots = new Card[dealt.length];
+        for (int i = 0; i < dealt.length; i++) {
+            slots[i] = (liveWords[i >>> 6] & (1L << i)) != 0 ? dealt[i] : null;
+        }
+        live = copyInto(live, liveWords);
+        liveCount = count;
+        availableView = null;
+        rescanAll();
+    }
+
+    boolean sameCardsAs(Board o) {
+        return Arrays.equals(slots, o.slots);
+    }
+
+    private static long[] copyInto(long[] dst, long[] src) {
+        if (dst.length != src.length) return src.clone();
+        System.arraycopy(src, 0, dst, 0, src.length);
+        return dst;
+    }
+
+    // ---------- Affordability ----------
+
+    void trackPlayers(Player[] seats) {
+        players = seats;
+        affordable = new long[seats.length][];
+        for (int seat = 0; seat < seats.length; seat++) {
+            seats[seat].attach(this, seat);
+            affordable[seat] = new long[live.length];
+            rescan(seat, live);
+        }
+    }
+
+    public boolean isAffordable(int seat, int slot) {
+        return (affordable[seat][slot >>> 6] & (1L << slot)) != 0;
+    }
+
+    public boolean hasAffordable(int seat) {
+        for (long w : affordable[seat]) if (w != 0) return true;
+        return false;
+    }
+
+    public int affordableCount(int seat) {
+        int n = 0;
+        for (long w : affordable[seat]) n += Long.bitCount(w);
+        return n;
+    }
+
+    // First affordable slot >= fromSlot, or -1. Iterate with
+    // for (int s = next(seat, 0); s >= 0; s = next(seat, s + 1)).
+    public int nextAffordableSlot(int seat, int fromSlot) {
+        long[] mask = affordable[seat];
+        int word = fromSlot >>> 6;
+        if (word >= mask.length) return -1;
+        long w = mask[word] & (-1L << fromSlot);
+        while (true) {
+            if (w != 0) return (word << 6) + Long.numberOfTrailingZeros(w);
+            if (++word == mask.length) return -1;
+            w = mask[word];
+        }
+    }
+
+    // Called by Player. More chips can only make unaffordable cards
+    // affordable and fewer chips only the reverse, so just those are checked.
+    // With a cost index, gains only visit the cards within the new chip counts.
+    void chipsChanged(int seat, boolean increased) {
+        long[] mask = affordable[seat];
+        long chips = players[seat].getPackedChips();
+        if (increased && costIndex != null) {
+            costIndex.markAffordable(chips, live, mask);
+            return;
+        }
+        for (int word = 0; word < mask.length; word++) {
+            long candidates = increased ? live[word] & ~mask[word] : mask[word];
+            while (candidates != 0) {
+                int bit = Long.numberOfTrailingZeros(candidates);
+                candidates &= candidates - 1;
+                int slot = (word << 6) + bit;
+                if (PackedChips.canAfford(chips, slots[slot].getCostLanes())) mask[word] |= 1L << bit;
+                else mask[word] &= ~(1L << bit);
+            }
+        }
+    }
+
+    // After players were restored without notifications
+    void rescanAffordable() {
+        for (int seat = 0; seat < players.length; seat++) rescan(seat, live);
+    }
+
+    private void rescanAll() {
+        for (int seat = 0; seat < players.length; seat++) {
+            if (affordable[seat].length != live.length) affordable[seat] = new long[live.length];
+            rescan(seat, live);
+        }
+    }
+
+    private void rescan(int seat, long[] candidates) {
+        long[] mask = affordable[seat];
+        Arrays.fill(mask, 0);
+        long chips = players[seat].getPackedChips();
+        if (costIndex != null) {
+            costIndex.markAffordable(chips, candidates, mask);
+            return;
+        }
+        for (int word = 0; word < candidates.length; word++) {
+            long c = candidates[word];
+            while (c != 0) {
+                int bit = Long.numberOfTrailingZeros(c);
+                c &= c - 1;
+                if (PackedChips.canAfford(chips, slots[(word << 6) + bit].getCostLanes())) mask[word] |= 1L << bit;
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -8,28 +8,55 @@ import java.util.*;
 public class Card {
     private final String id;
     private final int victoryPoints;
-    private final EnumMap<ChipColor, Integer> cost;
+    private final int cost;       // PackedChips cost lanes
+    private final long costLanes; // cost widened to the chip layout
+    private String costString;
 
     public Card(String id, int victoryPoints, Map<ChipColor, Integer> cost) {
         this.id = id;
         this.victoryPoints = victoryPoints;
-        this.cost = new EnumMap<>(ChipColor.class);
-        for (ChipColor c : ChipColor.values()) this.cost.put(c, 0);
-        for (var e : cost.entrySet()) this.cost.put(e.getKey(), e.getValue());
+        int packed = 0;
+        for (var e : cost.entrySet()) packed = PackedChips.withCost(packed, e.getKey(), e.getValue());
+        this.cost = packed;
+        this.costLanes = PackedChips.costToLanes(packed);
+    }
+
+    // cost as PackedChips cost lanes
+    Card(String id, int victoryPoints, int cost) {
+        this.id = id;
+        this.victoryPoints = victoryPoints;
+        this.cost = cost;
+        this.costLanes = PackedChips.costToLanes(cost);
     }
 
     public String getId() { return id; }
     public int getVictoryPoints() { return victoryPoints; }
-    public Map<ChipColor, Integer> getCost() { return Collections.unmodifiableMap(cost); }
+    public int getCost(ChipColor c) { return PackedChips.costOf(cost, c); }
+
+    public Map<ChipColor, Integer> getCost() {
+        EnumMap<ChipColor, Integer> m = new EnumMap<>(ChipColor.class);
+        for (ChipColor c : ChipColor.values()) m.put(c, getCost(c));
+        return Collections.unmodifiableMap(m);
+    }
+
+    int getPackedCost() { return cost; }
+    long getCostLanes() { return costLanes; }
 
     // Example: R3B3W0G0K0 -> but you can shorten to only non-zero for display.
+    // Cards never change, so it is built once (a benign race at worst builds it twice).
     public String costString() {
+        String s = costString;
+        if (s == null) costString = s = buildCostString();
+        return s;
+    }
+
+    private String buildCostString() {
         StringBuilder sb = new StringBuilder();
         for (ChipColor c : ChipColor.values()) {
-            int n = cost.getOrDefault(c, 0);
+            int n = getCost(c);
             if (n > 0) sb.append(c.toChar()).append(n);
         }
         if (sb.length() == 0) sb.append("FREE");
         return sb.toString();
     }
-}
\ No newline at end of file
+}
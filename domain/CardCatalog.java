@@ -0,0 +1,167 @@
+package domain;
+
+import java.util.*;
+
+// Process-wide set of card definitions. Each definition is parsed once into a
+// Card whose cost lanes are precomputed, and every board, snapshot and hosted
+// game shares those instances instead of building its own. Snapshots refer to
+// a card by its index here.
+//
+// Besides the standard 15-card deck, a catalog can be built from a deck
+// definition of any size (fromDefinitions); a game dealt that deck lays every
+// card out face up, so boards of thousands of slots are expected.
+public final class CardCatalog {
+    private static final CardCatalog STANDARD = standardDeck();
+
+    private final Card[] cards;
+    private final List<Card> view;
+    private final Map<String, Integer> index = new HashMap<>();
+    private final CardCostIndex costIndex;
+    private final int fingerprint;
+
+    // Open addressing by String.hashCode of the id, so ids can be looked up
+    // straight from a CharSequence range without making a String
+    private final int[] table; // card index + 1, 0 = empty
+    private final int mask;
+
+    public CardCatalog(List<Card> definitions) {
+        cards = definitions.toArray(new Card[0]);
+        view = Collections.unmodifiableList(Arrays.asList(cards));
+        int size = Integer.highestOneBit(Math.max(1, cards.length) * 2) * 2;
+        table = new int[size];
+        mask = size - 1;
+        for (int i = 0; i < cards.length; i++) {
+            if (index.put(cards[i].getId(), i) != null) {
+                throw new IllegalArgumentException("Duplicate card id: " + cards[i].getId());
+            }
+            int h = cards[i].getId().hashCode() & mask;
+            while (table[h] != 0) h = (h + 1) & mask;
+            table[h] = i + 1;
+        }
+        costIndex = new CardCostIndex(cards);
+        int h = cards.length;
+        for (Card c : cards) h = (31 * h + c.getId().hashCode()) * 31 * 31 + c.getVictoryPoints() * 31 + c.getPackedCost();
+        fingerprint = h;
+    }
+
+    // The 15-card deck every game is dealt
+    public static CardCatalog standard() {
+        return STANDARD;
+    }
+
+    private static CardCatalog standardDeck() {
+        // Easiest: hardcode 15 consistent cards.
+        // The rules: 0-3 chips per color, at least 2 in one color, max 3 colors in cost.  [oai_citation:6‡374 Homework 2 - minisplendor-Steve (2).pdf](sediment://file_000000007540722f9e8bbcb3aca3178b)
+        List<Card> cards = new ArrayList<>();
+        cards.add(parseCard("C1", 1, "B2K2"));
+        cards.add(parseCard("C2", 1, "G2W2"));
+        cards.add(parseCard("C3", 1, "R2B2"));
+        cards.add(parseCard("C4", 2, "G3K2"));
+        cards.add(parseCard("C5", 2, "R3"));
+        cards.add(parseCard("C6", 2, "B3"));
+        cards.add(parseCard("C7", 2, "G3"));
+        cards.add(parseCard("C8", 2, "W3"));
+        cards.add(parseCard("C9", 3, "R3B2"));
+        cards.add(parseCard("C10", 3, "G3K2"));
+        cards.add(parseCard("C11", 3, "R3K2"));
+        cards.add(parseCard("C12", 4, "R3B3"));
+        cards.add(parseCard("C13", 4, "G3W3"));
+        cards.add(parseCard("C14", 5, "G3K3"));
+        cards.add(parseCard("C15", 5, "R3B3W3")); // 3 colors max ok
+        return new CardCatalog(cards);
+    }
+
+    // One card per line as id|vp|cost, e.g. C1|1|B2K2 (the snapshot's board
+    // entries). Blank lines and lines starting with '#' are skipped.
+    public static CardCatalog fromDefinitions(List<String> lines) {
+        List<Card> cards = new ArrayList<>(lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            String[] f = line.split("\\|", -1);
+            try {
+                if (f.length != 3) throw new IllegalArgumentException("expected id|vp|cost");
+                if (f[0].isEmpty()) throw new IllegalArgumentException("empty id");
+                cards.add(parseCard(f[0], Integer.parseInt(f[1].trim()), f[2].trim()));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Bad deck definition at line " + (i + 1) + ": " + e.getMessage(), e);
+            }
+        }
+        if (cards.isEmpty()) throw new IllegalArgumentException("Deck definition has no cards");
+        return new CardCatalog(cards);
+    }
+
+    // costString like R3B2K1W3, or FREE
+    static Card parseCard(String id, int vp, String costString) {
+        int cost = 0;
+        if (!costString.equalsIgnoreCase("FREE")) {
+            for (int i = 0; i < costString.length(); ) {
+                ChipColor c = ChipColor.fromChar(costString.charAt(i++));
+                int n = 0;
+                int start = i;
+                while (i < costString.length() && Character.isDigit(costString.charAt(i))) {
+                    n = n * 10 + (costString.charAt(i++) - '0');
+                }
+                if (i == start) throw new IllegalArgumentException("Missing count in cost: " + costString);
+                cost = PackedChips.withCost(cost, c, n);
+            }
+        }
+        return new Card(id, vp, cost);
+    }
+
+    public int size() { return cards.length; }
+    public Card get(int i) { return cards[i]; }
+
+    // All cards in catalog order; shared, never copied
+    public List<Card> cards() { return view; }
+
+    public CardCostIndex costIndex() { return costIndex; }
+
+    // Hash of every definition in order. Binary snapshots record it, since
+    // their cards are indices into this catalog and mean nothing in another.
+    public int fingerprint() { return fingerprint; }
+
+    // Shared with boards dealt this deck; never modified
+    Card[] cardArray() { return cards; }
+    Map<String, Integer> idIndex() { return index; }
+
+    // Index of this exact definition (id, VP and cost), or -1
+    public int indexOf(Card c) {
+        Integer i = index.get(c.getId());
+        return i != null && sameDefinition(cards[i], c.getVictoryPoints(), c.getPackedCost()) ? i : -1;
+    }
+
+    public Card byId(String id) {
+        Integer i = index.get(id);
+        return i == null ? null : cards[i];
+    }
+
+    // The catalog card for this definition, or a new card if there is none
+    Card intern(String id, int vp, int cost) {
+        Card c = byId(id);
+        return c != null && sameDefinition(c, vp, cost) ? c : new Card(id, vp, cost);
+    }
+
+    // The card whose id is s[start, end), or null; allocates nothing
+    Card find(CharSequence s, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) h = 31 * h + s.charAt(i);
+        for (int slot = h & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            Card c = cards[table[slot] - 1];
+            if (idEquals(c.getId(), s, start, end)) return c;
+        }
+        return null;
+    }
+
+    private static boolean idEquals(String id, CharSequence s, int start, int end) {
+        if (id.length() != end - start) return false;
+        for (int i = 0; i < id.length(); i++) {
+            if (id.charAt(i) != s.charAt(start + i)) return false;
+        }
+        return true;
+    }
+
+    private static boolean sameDefinition(Card c, int vp, int cost) {
+        return c.getVictoryPoints() == vp && c.getPackedCost() == cost;
+    }
+}
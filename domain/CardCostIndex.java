@@ -0,0 +1,190 @@
+package domain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Index over a deck's five-color cost vectors, so large decks are not scanned
+// card by card.
+//
+// Cards sit in a k-d tree: each node covers a run of order, split at the
+// median of the color whose costs spread widest in it, down to leaves of at
+// most LEAF_SIZE cards. Every node keeps the per-color minimum and maximum
+// cost of its cards, so a query with the player's chips drops a node whose
+// minimum is out of reach, takes a node whose maximum is within reach whole,
+// and only checks cards one by one in leaves that straddle the chip counts.
+//
+// "Cheapest card worth at least V" is a binary search over the distinct VP
+// values, each holding the cheapest card at or above it. Cheapest means the
+// fewest chips in total; ties go to the earlier card in the deck.
+public final class CardCostIndex {
+    private static final int LEAF_SIZE = 16;
+    private static final ChipColor[] COLORS = ChipColor.values();
+
+    private final Card[] cards;      // deck order
+    private final int[] order;       // deck indices, grouped by tree node
+    private final long[] lanes;      // cost lanes, parallel to order
+
+    // Tree nodes in preorder, so a node's left child is the next node
+    private int nodeCount;
+    private final int[] nodeLo;      // node covers order[lo, hi)
+    private final int[] nodeHi;
+    private final int[] nodeRight;   // right child, or -1 for a leaf
+    private final long[] nodeMin;    // per-color minimum cost, as lanes
+    private final long[] nodeMax;    // per-color maximum cost, as lanes
+
+    private final int[] vpLevels;    // distinct VP values, ascending
+    private final int[] cheapestAt;  // deck index of the cheapest card worth >= vpLevels[i]
+
+    CardCostIndex(Card[] cards) {
+        this.cards = cards;
+        int n = cards.length;
+
+        order = new int[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        int maxNodes = 2 * (n / (LEAF_SIZE / 2) + 1);
+        nodeLo = new int[maxNodes];
+        nodeHi = new int[maxNodes];
+        nodeRight = new int[maxNodes];
+        nodeMin = new long[maxNodes];
+        nodeMax = new long[maxNodes];
+        if (n > 0) build(0, n);
+        lanes = new long[n];
+        for (int k = 0; k < n; k++) lanes[k] = cards[order[k]].getCostLanes();
+
+        long[] byVp = new long[n]; // VP in the high half, deck index in the low
+        for (int i = 0; i < n; i++) byVp[i] = (long) cards[i].getVictoryPoints() << 32 | i;
+        Arrays.sort(byVp);
+        int[] levels = new int[n];
+        int[] cheapest = new int[n];
+        int count = 0;
+        int best = -1;
+        for (int k = n - 1; k >= 0; k--) { // VP descending: a running minimum is the suffix minimum
+            int i = (int) byVp[k];
+            if (best < 0 || cheaper(i, best)) best = i;
+            int vp = (int) (byVp[k] >> 32);
+            if (k == 0 || (int) (byVp[k - 1] >> 32) != vp) {
+                levels[count] = vp;
+                cheapest[count] = best;
+                count++;
+            }
+        }
+        vpLevels = new int[count];
+        cheapestAt = new int[count];
+        for (int i = 0; i < count; i++) { // reverse into ascending order
+            vpLevels[i] = levels[count - 1 - i];
+            cheapestAt[i] = cheapest[count - 1 - i];
+        }
+    }
+
+    // Adds the node for order[lo, hi) and its subtree; returns its number
+    private int build(int lo, int hi) {
+        int node = nodeCount++;
+        nodeLo[node] = lo;
+        nodeHi[node] = hi;
+
+        int min = 0;
+        int max = 0;
+        ChipColor widest = COLORS[0];
+        int spread = -1;
+        for (ChipColor c : COLORS) {
+            int cMin = PackedChips.MAX_COST;
+            int cMax = 0;
+            for (int k = lo; k < hi; k++) {
+                int v = cards[order[k]].getCost(c);
+                cMin = Math.min(cMin, v);
+                cMax = Math.max(cMax, v);
+            }
+            min = PackedChips.withCost(min, c, cMin);
+            max = PackedChips.withCost(max, c, cMax);
+            if (cMax - cMin > spread) {
+                spread = cMax - cMin;
+                widest = c;
+            }
+        }
+        nodeMin[node] = PackedChips.costToLanes(min);
+        nodeMax[node] = PackedChips.costToLanes(max);
+
+        if (hi - lo <= LEAF_SIZE || spread == 0) { // small, or every card costs the same
+            nodeRight[node] = -1;
+            return node;
+        }
+        long[] keys = new long[hi - lo]; // cost in the widest color, then deck index
+        for (int k = lo; k < hi; k++) keys[k - lo] = (long) cards[order[k]].getCost(widest) << 32 | order[k];
+        Arrays.sort(keys);
+        for (int k = lo; k < hi; k++) order[k] = (int) keys[k - lo];
+
+        int mid = (lo + hi) >>> 1;
+        build(lo, mid);
+        nodeRight[node] = build(mid, hi);
+        return node;
+    }
+
+    // Every card the player can afford right now
+    public List<Card> affordableBy(Player p) {
+        List<Card> out = new ArrayList<>();
+        if (nodeCount > 0) collect(0, p.getPackedChips(), out);
+        return out;
+    }
+
+    private void collect(int node, long chips, List<Card> out) {
+        if (!PackedChips.canAfford(chips, nodeMin[node])) return;
+        boolean all = PackedChips.canAfford(chips, nodeMax[node]);
+        if (all || nodeRight[node] < 0) {
+            for (int k = nodeLo[node]; k < nodeHi[node]; k++) {
+                if (all || PackedChips.canAfford(chips, lanes[k])) out.add(cards[order[k]]);
+            }
+            return;
+        }
+        collect(node + 1, chips, out);
+        collect(nodeRight[node], chips, out);
+    }
+
+    // The cheapest card worth at least minVp, or null if none is
+    public Card cheapestWorth(int minVp) {
+        int lo = 0;
+        int hi = vpLevels.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (vpLevels[mid] < minVp) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo < vpLevels.length ? cards[cheapestAt[lo]] : null;
+    }
+
+    // Sets the mask bit of every affordable deck index whose candidates bit is
+    // set. Bits already set in mask are left alone.
+    void markAffordable(long chips, long[] candidates, long[] mask) {
+        if (nodeCount > 0) mark(0, chips, candidates, mask);
+    }
+
+    private void mark(int node, long chips, long[] candidates, long[] mask) {
+        if (!PackedChips.canAfford(chips, nodeMin[node])) return;
+        boolean all = PackedChips.canAfford(chips, nodeMax[node]);
+        if (all || nodeRight[node] < 0) {
+            for (int k = nodeLo[node]; k < nodeHi[node]; k++) {
+                int i = order[k];
+                long bit = 1L << i;
+                if ((candidates[i >>> 6] & ~mask[i >>> 6] & bit) != 0
+                        && (all || PackedChips.canAfford(chips, lanes[k]))) {
+                    mask[i >>> 6] |= bit;
+                }
+            }
+            return;
+        }
+        mark(node + 1, chips, candidates, mask);
+        mark(nodeRight[node], chips, candidates, mask);
+    }
+
+    private boolean cheaper(int a, int b) {
+        int ca = totalCost(cards[a]);
+        int cb = totalCost(cards[b]);
+        return ca < cb || (ca == cb && a < b);
+    }
+
+    private static int totalCost(Card c) {
+        int total = 0;
+        for (ChipColor color : ChipColor.values()) total += c.getCost(color);
+        return total;
+    }
+}
@@ -3,9 +3,27 @@
 
 package domain;
 
+import metrics.Counter;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
+
+import java.nio.ByteBuffer;
 import java.util.*;
 
 public class Game {
+    // Only games with a store are measured, so simulations and AI search
+    // (unsaved copies) do not drown out the real moves.
+    private static final Counter TAKE_CHIP_MOVES = Metrics.counter("game.moves.takeChip");
+    private static final Counter BUY_CARD_MOVES = Metrics.counter("game.moves.buyCard");
+    private static final Counter NEW_GAMES = Metrics.counter("game.moves.newGame");
+    private static final Counter ILLEGAL_MOVES = Metrics.counter("game.moves.illegal");
+    private static final Counter SAVES = Metrics.counter("game.saves");
+    private static final Counter SAVE_BYTES = Metrics.counter("game.saves.bytes");
+    private static final Counter LEADERBOARD_SAVES = Metrics.counter("game.leaderboardSaves");
+    private static final Counter LEADERBOARD_SAVE_BYTES = Metrics.counter("game.leaderboardSaves.bytes");
+    private static final LatencyHistogram TAKE_CHIP_LATENCY = Metrics.histogram("game.takeChip");
+    private static final LatencyHistogram BUY_CARD_LATENCY = Metrics.histogram("game.buyCard");
+
     private final Board board = new Board();
     private final Player[] players = new Player[] { new Player(), new Player() };
     private final TurnState turn = new TurnState();
@@ -13,42 +31,183 @@ public class Game {
     private final SnapshotStore store;
     private final LeaderboardStore leaderboardStore;
     private final Leaderboard leaderboard;
-    private final GameSnapshotCodec codec = new GameSnapshotCodec();
+    private GameHistory history = new GameHistory();
+    private GameHistoryStore historyStore;
+    private CardCatalog deck;
+    private GameSnapshotCodec codec;
+
+    private final List<GameListener> listeners = new ArrayList<>();
+
+    // Events raised while a move is applied wait here until moved() has
+    // published the result: type in the high byte, seat or slot below.
+    private int[] pendingEvents = new int[8];
+    private int pendingCount;
+    private boolean inMove;
+
+    // Immutable view of the position, captured on demand: moves only mark it
+    // stale. Saved games keep every earlier version for undo/redo.
+    private GameState state;
+    private boolean stateStale = true;
+    // Undo keeps the latest MAX_UNDO versions; older ones are dropped.
+    static final int MAX_UNDO = 256;
+    private final Deque<GameState> undoStack = new ArrayDeque<>();
+    private final Deque<GameState> redoStack = new ArrayDeque<>();
+
+    // Latest version for readers on other threads: written once per move by
+    // the thread making moves, read without locking. Saved games publish by
+    // default; search copies skip it unless enablePublishing() is called.
+    private volatile GameState published;
+    private boolean publishing;
 
     private String lastError = "";
     private boolean hasMeaningfulProgress = false;
     private boolean gameOverRecorded = false;
 
-    private Game(SnapshotStore store, LeaderboardStore leaderboardStore, Leaderboard leaderboard) {
+    // With a journal, moves are appended there and a full snapshot
+    // (checkpoint) is only written every checkpointEvery moves.
+    private MoveJournal journal;
+    private int checkpointEvery = 1;
+    private int movesSinceCheckpoint = 0;
+    // Number of the last journaled move. Checkpoints carry it, so replay can
+    // skip records a crash left behind after the checkpoint was written.
+    private long seq = 0;
+    private boolean replaying = false;
+
+    private Game(SnapshotStore store, LeaderboardStore leaderboardStore, Leaderboard leaderboard, CardCatalog deck) {
         this.store = store;
         this.leaderboardStore = leaderboardStore;
         this.leaderboard = leaderboard;
+        this.publishing = store != null;
+        useDeck(deck);
+        seedHistoryFromLeaderboard();
+        board.trackPlayers(players);
     }
 
     // Used by codec decode
-    static Game newEmpty(SnapshotStore store, LeaderboardStore leaderboardStore, Leaderboard leaderboard) {
-        Game g = new Game(store, leaderboardStore, leaderboard);
-        g.startNewGameNoSave(); // makes 15 cards, resets players, resets turn
+    static Game newEmpty(SnapshotStore store, LeaderboardStore leaderboardStore, Leaderboard leaderboard,
+                         CardCatalog deck) {
+        Game g = new Game(store, leaderboardStore, leaderboard, deck);
+        g.startNewGameNoSave(); // deals the deck, resets players, resets turn
+        return g;
+    }
+
+    // Rules only, nothing is saved: for simulations and search.
+    public static Game newUnsaved() {
+        return newUnsaved(CardCatalog.standard());
+    }
+
+    public static Game newUnsaved(CardCatalog deck) {
+        Game g = new Game(null, null, new Leaderboard(), deck);
+        g.startNewGameNoSave();
         return g;
     }
 
+    // Unsaved copy of the current position, e.g. for an AI to search from.
+    public Game copyUnsaved() {
+        Game g = new Game(null, null, new Leaderboard(), deck);
+        g.copyStateFrom(this);
+        return g;
+    }
+
+    // Overwrites this game's position with o's, reusing this game's objects.
+    public void copyStateFrom(Game o) {
+        if (deck != o.deck) useDeck(o.deck);
+        board.copyFrom(o.board);
+        for (int i = 0; i < players.length; i++) players[i].copyFrom(o.players[i]);
+        turn.copyFrom(o.turn);
+        lastError = o.lastError;
+        hasMeaningfulProgress = o.hasMeaningfulProgress;
+        gameOverRecorded = o.gameOverRecorded;
+        state = null; // a different live set can have the same card count
+        stateStale = true;
+        publishState();
+        fireBoardReset();
+    }
+
+    public boolean samePositionAs(Game o) {
+        for (int i = 0; i < players.length; i++) {
+            if (!players[i].sameStateAs(o.players[i])) return false;
+        }
+        return turn.sameStateAs(o.turn) && board.sameCardsAs(o.board);
+    }
+
+    private void useDeck(CardCatalog deck) {
+        this.deck = deck;
+        codec = new GameSnapshotCodec(GameSnapshotCodec.Format.BINARY, deck);
+    }
+
     public static Game loadOrNew(SnapshotStore store, LeaderboardStore leaderboardStore) {
-        GameSnapshotCodec codec = new GameSnapshotCodec();
+        return loadOrNew(store, leaderboardStore, CardCatalog.standard());
+    }
+
+    // A game dealt from deck. Its snapshots refer to cards by their index in
+    // deck, so a saved game must be loaded with the same deck.
+    public static Game loadOrNew(SnapshotStore store, LeaderboardStore leaderboardStore, CardCatalog deck) {
+        GameSnapshotCodec codec = new GameSnapshotCodec(GameSnapshotCodec.Format.TEXT, deck);
         Leaderboard leaderboard = Leaderboard.decode(leaderboardStore.loadLeaderboardOrNull());
         String snap = store.loadSnapshotOrNull();
         if (snap == null || snap.isBlank()) {
-            Game g = new Game(store, leaderboardStore, leaderboard);
+            Game g = new Game(store, leaderboardStore, leaderboard, deck);
             g.startNewGame();
             return g;
         }
         return codec.decode(snap, store, leaderboardStore, leaderboard);
     }
 
+    // Loads the last checkpoint and replays the journal written since then.
+    public static Game loadOrNew(SnapshotStore store, LeaderboardStore leaderboardStore,
+                                 MoveJournal journal, int checkpointEvery) {
+        return loadOrNew(store, leaderboardStore, journal, checkpointEvery, CardCatalog.standard());
+    }
+
+    public static Game loadOrNew(SnapshotStore store, LeaderboardStore leaderboardStore,
+                                 MoveJournal journal, int checkpointEvery, CardCatalog deck) {
+        Game g = loadOrNew(store, leaderboardStore, deck);
+        g.journal = journal;
+        g.checkpointEvery = Math.max(1, checkpointEvery);
+        g.replay(journal.loadRecords());
+        return g;
+    }
+
+    // Keeps every completed game in historyStore, not just the leaderboard's
+    // last four. A store that is still empty is seeded from the leaderboard.
+    public void attachHistory(GameHistoryStore historyStore) {
+        this.historyStore = historyStore;
+        history = new GameHistory();
+        historyStore.loadInto(history);
+        if (history.isEmpty()) {
+            seedHistoryFromLeaderboard();
+            for (int i = 0; i < history.size(); i++) {
+                historyStore.append(history.timestampAt(i), history.player1VpAt(i), history.player2VpAt(i));
+            }
+        }
+        // Stats saved with the leaderboard already cover every game; older
+        // data without them is rebuilt from the history once and saved.
+        if (!leaderboard.hasStoredStats()) {
+            leaderboard.rebuildStats(history);
+            saveLeaderboardNow();
+        }
+        fireLeaderboardUpdated();
+    }
+
+    private void seedHistoryFromLeaderboard() {
+        List<Leaderboard.Entry> entries = leaderboard.getEntries(); // newest first
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            Leaderboard.Entry e = entries.get(i);
+            history.add(e.getTimestampMillis(), e.getPlayer1Vp(), e.getPlayer2Vp());
+        }
+    }
+
     public void startNewGame() {
         recordCompletedGameIfProgress();
-        store.clear();
+        if (journal == null && !replaying && store != null) store.clear();
         startNewGameNoSave();
-        saveNow();
+        undoStack.clear();
+        redoStack.clear();
+        publishState();
+        fireBoardReset();
+        persistMove("N");
+        if (store != null && !replaying) NEW_GAMES.increment();
     }
 
     private void startNewGameNoSave() {
@@ -60,16 +219,46 @@ public class Game {
         // Here we’ll just new it up conceptually (or add a reset method).
         // We'll approximate by clearing through a new TurnState in your final code.
 
-        board.resetWith15Cards(generate15Cards());
+        board.deal(deck);
         hasMeaningfulProgress = false;
         gameOverRecorded = false;
+        state = null; // a new deal can reuse the deck's array, so nothing carries over
+        stateStale = true;
         clearError();
     }
 
     public void takeChip(ChipColor color) {
+        MoveResult r = tryTakeChip(color);
+        if (!r.isOk()) throw new IllegalMoveException(r);
+    }
+
+    // Like takeChip, but reports a rule violation as the result instead of throwing.
+    public MoveResult tryTakeChip(ChipColor color) {
+        inMove = true;
+        try {
+            if (store == null) return moved(null, applyTakeChip(color));
+            GameState before = getState();
+            long start = System.nanoTime();
+            MoveResult r = applyTakeChip(color);
+            if (r.isOk()) TAKE_CHIP_MOVES.increment();
+            TAKE_CHIP_LATENCY.recordSince(start);
+            return moved(before, r);
+        } finally {
+            endMove();
+        }
+    }
+
+    // Chip counts are packed into fixed-width lanes, so each color stops at
+    // PackedChips.MAX_CHIPS. LegalMoves uses the same check.
+    static boolean canHoldAnother(Player p, ChipColor color) {
+        return p.getChips(color) < PackedChips.MAX_CHIPS;
+    }
+
+    private MoveResult applyTakeChip(ChipColor color) {
         clearError();
-        ensureGameNotOver();
+        if (isGameOver()) return illegal(MoveResult.GAME_OVER);
         Player p = currentPlayer();
+        if (!canHoldAnother(p, color)) return illegal(MoveResult.CHIP_LIMIT);
 
         // Rule: once you attempt chip-taking, you cannot buy this turn.
         turn.startChipActionIfNeeded();
@@ -79,118 +268,387 @@ public class Game {
         if (n == 0) {
             // Always ok to take first chip
             p.addChip(color, 1);
+            fireChipsChanged(turn.getCurrentPlayerIndex());
             turn.recordChip(color);
             markProgress();
-            saveNow(); // save after every move (each chip click)
-            return;
+            persistMove(chipRecord(color)); // save after every move (each chip click)
+            return MoveResult.OK;
         }
 
         if (n == 1) {
-            ChipColor first = turn.getChipsTakenThisTurn().get(0);
+            ChipColor first = turn.chipTaken(0);
 
             // second chip can be same OR different
             p.addChip(color, 1);
+            fireChipsChanged(turn.getCurrentPlayerIndex());
             turn.recordChip(color);
             markProgress();
-            saveNow();
 
             // If took 2 of same -> end turn immediately
             if (color == first) endTurn();
-            return;
+            persistMove(chipRecord(color));
+            return MoveResult.OK;
         }
 
         if (n == 2) {
-            ChipColor c1 = turn.getChipsTakenThisTurn().get(0);
-            ChipColor c2 = turn.getChipsTakenThisTurn().get(1);
+            ChipColor c1 = turn.chipTaken(0);
+            ChipColor c2 = turn.chipTaken(1);
 
             // If first two were different, third must be different from both
             if (c1 != c2) {
                 if (color == c1 || color == c2) {
-                    throw illegal("Third chip must be a different color than the first two.");
+                    return illegal(MoveResult.THIRD_CHIP_REPEATS);
                 }
                 p.addChip(color, 1);
+                fireChipsChanged(turn.getCurrentPlayerIndex());
                 turn.recordChip(color);
                 markProgress();
-                saveNow();
                 endTurn();
-                return;
+                persistMove(chipRecord(color));
+                return MoveResult.OK;
             }
 
             // If first two were same, the rules say that should have ended immediately,
             // so reaching here implies inconsistent state.
-            throw illegal("Internal state error: turn should have ended after taking 2 same-color chips.");
+            return illegal(MoveResult.TURN_SHOULD_HAVE_ENDED);
         }
 
-        throw illegal("You already took the maximum number of chips this turn.");
+        return illegal(MoveResult.TOO_MANY_CHIPS);
     }
 
     public void buyCard(String cardId) {
+        MoveResult r = tryBuyCard(cardId);
+        if (!r.isOk()) throw new IllegalMoveException(r);
+    }
+
+    // Like buyCard, but reports a rule violation as the result instead of throwing.
+    public MoveResult tryBuyCard(String cardId) {
+        inMove = true;
+        try {
+            if (store == null) return moved(null, applyBuyCard(cardId));
+            GameState before = getState();
+            long start = System.nanoTime();
+            MoveResult r = applyBuyCard(cardId);
+            if (r.isOk()) BUY_CARD_MOVES.increment();
+            BUY_CARD_LATENCY.recordSince(start);
+            return moved(before, r);
+        } finally {
+            endMove();
+        }
+    }
+
+    private MoveResult moved(GameState before, MoveResult r) {
+        if (r.isOk() && before != null) {
+            pushUndo(before);
+            redoStack.clear();
+        }
+        return r;
+    }
+
+    // Also runs when the journal or store throws mid-move, so events never
+    // stay queued behind a failed move.
+    private void endMove() {
+        stateStale = true; // even a rejected chip move may have started the chip action
+        publishState();
+        inMove = false;
+        firePending();
+    }
+
+    // ---------- Versions ----------
+
+    // The current position as an immutable value; later moves never change it.
+    public GameState getState() {
+        if (stateStale) {
+            state = GameState.capture(state, board, players, turn);
+            stateStale = false;
+        }
+        return state;
+    }
+
+    // Jumps to any version, of this game or another, e.g. to explore a branch.
+    // With a journal the new position is appended as an "S" record like any
+    // move, so undo/redo never waits for a checkpoint to reach the disk.
+    public void restoreState(GameState s) {
+        s.restoreInto(board, players, turn);
+        state = s;
+        stateStale = false;
+        publishState();
+        hasMeaningfulProgress = hasProgressFromState();
+        gameOverRecorded |= board.isEmpty(); // a finished game is only recorded once
         clearError();
-        ensureGameNotOver();
+        if (store != null && !replaying) {
+            if (journal != null) persistMove("S " + codec.encode(s));
+            else saveNow();
+        }
+        fireBoardReset();
+    }
+
+    // The version most recently published; safe to call from any thread.
+    // Listeners fire after the move publishes, so one may read this while
+    // handling the event, or hand off to another thread that does.
+    public GameState getPublishedState() {
+        GameState s = published;
+        return s != null ? s : getState(); // never published: same thread only
+    }
+
+    public void enablePublishing() {
+        publishing = true;
+        publishState();
+    }
+
+    void publishState() {
+        if (publishing) published = getState();
+    }
+
+    public boolean canUndo() { return !undoStack.isEmpty(); }
+    public boolean canRedo() { return !redoStack.isEmpty(); }
+
+    // Takes back the last move; false if there is none
+    public boolean undo() {
+        if (undoStack.isEmpty()) return false;
+        redoStack.push(getState());
+        restoreState(undoStack.pop());
+        return true;
+    }
+
+    public boolean redo() {
+        if (redoStack.isEmpty()) return false;
+        pushUndo(getState());
+        restoreState(redoStack.pop());
+        return true;
+    }
+
+    private void pushUndo(GameState s) {
+        undoStack.push(s);
+        if (undoStack.size() > MAX_UNDO) undoStack.removeLast();
+    }
+
+    private MoveResult applyBuyCard(String cardId) {
+        clearError();
+        if (isGameOver()) return illegal(MoveResult.GAME_OVER);
 
         // Rule: cannot buy if you took chips in this turn
         if (turn.hasChoseChipAction() && turn.chipsTakenCount() > 0) {
-            throw illegal("You cannot buy a card after taking chips this turn.");
+            return illegal(MoveResult.BUY_AFTER_CHIPS);
         }
 
         Card c = board.getCardById(cardId);
-        if (c == null) throw illegal("That card is not available.");
+        if (c == null) return illegal(MoveResult.CARD_NOT_AVAILABLE);
 
         Player p = currentPlayer();
-        if (!p.canAfford(c)) throw illegal("You cannot afford this card.");
+        if (!p.canAfford(c)) return illegal(MoveResult.CANNOT_AFFORD);
 
+        int slot = board.slotOf(cardId);
         p.buy(c);
         board.removeCard(cardId);
+        fireChipsChanged(turn.getCurrentPlayerIndex());
+        fireCardRemoved(slot);
         markProgress();
 
-        saveNow(); // save after move
         checkGameOverAfterMove();
         endTurn();
+        persistMove("B " + cardId); // save after move
+        return MoveResult.OK;
     }
 
     private void endTurn() {
         turn.resetForNextTurn();
-        saveNow();
+        fireTurnChanged();
     }
 
     private Player currentPlayer() {
         return players[turn.getCurrentPlayerIndex()];
     }
 
-    private void ensureGameNotOver() {
-        if (isGameOver()) {
-            throw illegal("Game over. Start a new game to keep playing.");
+    private MoveResult illegal(MoveResult r) {
+        lastError = r.message();
+        if (store != null) ILLEGAL_MOVES.increment();
+        return r;
+    }
+
+    private void saveNow() {
+        if (store.acceptsEncodedBuffer()) {
+            ByteBuffer snapshot = codec.encodeToBuffer(getState(), seq);
+            SAVE_BYTES.add(snapshot.remaining());
+            store.saveSnapshot(snapshot);
+            SAVES.increment();
+            return;
+        }
+        String snapshot = codec.encode(getState(), seq);
+        store.saveSnapshot(snapshot);
+        SAVES.increment();
+        SAVE_BYTES.add(snapshot.length()); // ASCII: one byte per char
+    }
+
+    private void persistMove(String record) {
+        stateStale = true; // the move has changed the position; saveNow captures it
+        if (replaying || store == null) return;
+        if (journal == null) {
+            saveNow();
+            return;
         }
+        journal.append(++seq + " " + record);
+        if (++movesSinceCheckpoint >= checkpointEvery) checkpoint();
     }
 
-    private IllegalMoveException illegal(String msg) {
-        lastError = msg;
-        return new IllegalMoveException(msg);
+    private void checkpoint() {
+        saveNow();
+        // The journal may only be dropped once the checkpoint is durable.
+        store.awaitPersisted();
+        journal.clear();
+        movesSinceCheckpoint = 0;
     }
 
-    private void saveNow() {
-        store.saveSnapshot(codec.encode(this));
+    // Records are "<seq> <move>"; those at or below the checkpoint's seq are
+    // already in it.
+    // A torn or rejected record ends the replay. Its position is then
+    // checkpointed right away and the journal cleared, so the next append
+    // does not land behind the bad line, where a later replay would stop.
+    private void replay(List<String> records) {
+        boolean stopped = false;
+        replaying = true;
+        try {
+            for (String r : records) {
+                int space = r.indexOf(' ');
+                long n = space > 0 ? parseSeq(r, space) : -1;
+                if (n >= 0 && n <= seq) continue;
+                if (n < 0 || !applyRecord(r.substring(space + 1))) { // torn or unknown tail
+                    stopped = true;
+                    break;
+                }
+                seq = n;
+                movesSinceCheckpoint++;
+            }
+        } finally {
+            replaying = false;
+        }
+        clearError();
+        if (stopped && store != null) checkpoint();
+    }
+
+    private boolean applyRecord(String r) {
+        try {
+            if (r.equals("N")) {
+                startNewGame();
+                return true;
+            } else if (r.startsWith("T ") && r.length() == 3) {
+                return tryTakeChip(ChipColor.fromChar(r.charAt(2))).isOk();
+            } else if (r.startsWith("B ")) {
+                return tryBuyCard(r.substring(2)).isOk();
+            } else if (r.startsWith("S ")) { // undo, redo or another restoreState
+                GameState s;
+                try {
+                    s = codec.decode(r.substring(2), null, null, new Leaderboard()).getState();
+                } catch (RuntimeException torn) { // cut short: Base64 or buffer underflow
+                    return false;
+                }
+                restoreState(s);
+                return true;
+            }
+            return false;
+        } catch (IllegalArgumentException e) { // bad color char
+            return false;
+        }
+    }
+
+    // The leading number of r[0, end), or -1 if it is not all digits
+    private static long parseSeq(String r, int end) {
+        long n = 0;
+        for (int i = 0; i < end; i++) {
+            char ch = r.charAt(i);
+            if (ch < '0' || ch > '9' || n > Long.MAX_VALUE / 10) return -1;
+            n = n * 10 + (ch - '0');
+        }
+        return n;
+    }
+
+    private static String chipRecord(ChipColor color) {
+        return "T " + color.toChar();
     }
 
     private void saveLeaderboardNow() {
         if (leaderboardStore == null) return;
-        leaderboardStore.saveLeaderboard(leaderboard.encode());
+        String data = leaderboard.encode();
+        leaderboardStore.saveLeaderboard(data);
+        LEADERBOARD_SAVES.increment();
+        LEADERBOARD_SAVE_BYTES.add(data.length());
     }
 
+    // Only persisted games count: unsaved copies (search, self-play) finish
+    // games by the thousand and must not grow the history or leaderboard.
     private void recordCompletedGameIfProgress() {
         if (!hasMeaningfulProgress || gameOverRecorded) return;
-        leaderboard.addEntry(players[0].getVictoryPoints(), players[1].getVictoryPoints(), System.currentTimeMillis());
-        saveLeaderboardNow();
+        if (!replaying && store != null) { // the leaderboard was saved before the move was journaled
+            int p1 = players[0].getVictoryPoints();
+            int p2 = players[1].getVictoryPoints();
+            long now = System.currentTimeMillis();
+            leaderboard.addEntry(p1, p2, now);
+            saveLeaderboardNow();
+            history.add(now, p1, p2);
+            if (historyStore != null) historyStore.append(now, p1, p2);
+            fireLeaderboardUpdated();
+        }
         hasMeaningfulProgress = false;
         gameOverRecorded = true;
     }
 
+    // ---------- Change events ----------
+    public void addListener(GameListener l) { listeners.add(l); }
+    public void removeListener(GameListener l) { listeners.remove(l); }
+
+    private static final int CHIPS_CHANGED = 1;
+    private static final int CARD_REMOVED = 2;
+    private static final int TURN_CHANGED = 3;
+    private static final int LEADERBOARD_UPDATED = 4;
+    private static final int BOARD_RESET = 5;
+
+    private void fireChipsChanged(int seat) { fire(CHIPS_CHANGED, seat); }
+    private void fireCardRemoved(int slot) { fire(CARD_REMOVED, slot); }
+    private void fireTurnChanged() { fire(TURN_CHANGED, turn.getCurrentPlayerIndex()); }
+    private void fireLeaderboardUpdated() { fire(LEADERBOARD_UPDATED, 0); }
+    private void fireBoardReset() { fire(BOARD_RESET, 0); }
+
+    private void fire(int type, int arg) {
+        if (listeners.isEmpty()) return;
+        if (!inMove) {
+            dispatch(type, arg);
+            return;
+        }
+        if (pendingCount == pendingEvents.length) pendingEvents = Arrays.copyOf(pendingEvents, pendingCount * 2);
+        pendingEvents[pendingCount++] = type << 24 | arg;
+    }
+
+    private void firePending() {
+        for (int i = 0; i < pendingCount; i++) dispatch(pendingEvents[i] >>> 24, pendingEvents[i] & 0xFFFFFF);
+        pendingCount = 0;
+    }
+
+    // Indexed loops: no iterator allocation on the move path
+    private void dispatch(int type, int arg) {
+        for (int i = 0; i < listeners.size(); i++) {
+            GameListener l = listeners.get(i);
+            switch (type) {
+                case CHIPS_CHANGED -> l.chipsChanged(arg);
+                case CARD_REMOVED -> l.cardRemoved(arg);
+                case TURN_CHANGED -> l.turnChanged(arg);
+                case LEADERBOARD_UPDATED -> l.leaderboardUpdated();
+                default -> l.boardReset();
+            }
+        }
+    }
+
     // ---------- Getters for UI ----------
     public int getCurrentPlayerNumber() { return turn.getCurrentPlayerIndex() + 1; }
     public Board getBoard() { return board; }
+
+    // Set by decode from the snapshot
+    void restoreSeq(long seq) { this.seq = seq; }
+    public CardCatalog getDeck() { return deck; }
     public Player getPlayer(int idx) { return players[idx]; }
     public TurnState getTurnState() { return turn; }
     public List<Leaderboard.Entry> getLeaderboardEntries() { return leaderboard.getEntries(); }
+    public GameHistory getHistory() { return history; }
+    public LeaderboardStats getLeaderboardStats() { return leaderboard.getStats(); }
     public boolean isGameOver() { return board.isEmpty(); }
     public int getWinnerPlayerNumber() {
         int p1Vp = players[0].getVictoryPoints();
@@ -204,42 +662,6 @@ public class Game {
     public void clearError() { lastError = ""; }
 
     // ---------- Card generation ----------
-    private List<Card> generate15Cards() {
-        // Easiest: hardcode 15 consistent cards.
-        // The rules: 0-3 chips per color, at least 2 in one color, max 3 colors in cost.  [oai_citation:6‡374 Homework 2 - minisplendor-Steve (2).pdf](sediment://file_000000007540722f9e8bbcb3aca3178b)
-        List<Card> cards = new ArrayList<>();
-        cards.add(card("C1", 1, "B2K2"));
-        cards.add(card("C2", 1, "G2W2"));
-        cards.add(card("C3", 1, "R2B2"));
-        cards.add(card("C4", 2, "G3K2"));
-        cards.add(card("C5", 2, "R3"));
-        cards.add(card("C6", 2, "B3"));
-        cards.add(card("C7", 2, "G3"));
-        cards.add(card("C8", 2, "W3"));
-        cards.add(card("C9", 3, "R3B2"));
-        cards.add(card("C10", 3, "G3K2"));
-        cards.add(card("C11", 3, "R3K2"));
-        cards.add(card("C12", 4, "R3B3"));
-        cards.add(card("C13", 4, "G3W3"));
-        cards.add(card("C14", 5, "G3K3"));
-        cards.add(card("C15", 5, "R3B3W3")); // 3 colors max ok
-        return cards;
-    }
-
-    private Card card(String id, int vp, String costString) {
-        Map<ChipColor, Integer> cost = new EnumMap<>(ChipColor.class);
-        for (ChipColor c : ChipColor.values()) cost.put(c, 0);
-
-        // parse like R3B2K1W3
-        for (int i = 0; i < costString.length(); ) {
-            char ch = costString.charAt(i++);
-            int start = i;
-            while (i < costString.length() && Character.isDigit(costString.charAt(i))) i++;
-            int n = Integer.parseInt(costString.substring(start, i));
-            cost.put(ChipColor.fromChar(ch), n);
-        }
-        return new Card(id, vp, cost);
-    }
 
     void recomputeProgress() {
         hasMeaningfulProgress = hasProgressFromState();
@@ -248,12 +670,10 @@ public class Game {
 
     private boolean hasProgressFromState() {
         if (turn.chipsTakenCount() > 0 || turn.hasChoseChipAction()) return true;
-        if (board.getAvailable().size() != 15) return true;
+        if (board.liveCount() != deck.size()) return true;
         for (Player p : players) {
             if (p.getVictoryPoints() > 0) return true;
-            for (ChipColor c : ChipColor.values()) {
-                if (p.getChips(c) > 0) return true;
-            }
+            if (!PackedChips.isEmpty(p.getPackedChips())) return true;
         }
         return false;
     }
@@ -0,0 +1,108 @@
+package domain;
+
+import java.util.Arrays;
+
+// Every completed game, oldest first, held in parallel primitive arrays so
+// millions of results cost 16 bytes each and no objects.
+//
+// Besides the arrays, each result's index is filed under its margin
+// |p1 - p2| and its total VP, so top-K queries walk the few populated keys
+// from the highest down instead of sorting everything. Timestamps are kept
+// non-decreasing (a result stamped before the previous one is clamped to
+// it), which lets time ranges be found by binary search.
+public class GameHistory {
+    private long[] timestamps = new long[16];
+    private int[] player1Vp = new int[16];
+    private int[] player2Vp = new int[16];
+    private int size;
+
+    private final Buckets byMargin = new Buckets();
+    private final Buckets byTotalVp = new Buckets();
+
+    // Entry indices grouped by a small non-negative key, ascending within a key
+    private static final class Buckets {
+        int[][] lists = new int[0][];
+        int[] counts = new int[0];
+
+        void add(int key, int index) {
+            if (key >= lists.length) {
+                int n = Math.max(key + 1, lists.length * 2);
+                lists = Arrays.copyOf(lists, n);
+                counts = Arrays.copyOf(counts, n);
+            }
+            int[] l = lists[key];
+            if (l == null) l = lists[key] = new int[4];
+            else if (counts[key] == l.length) l = lists[key] = Arrays.copyOf(l, l.length * 2);
+            l[counts[key]++] = index;
+        }
+
+        // Up to k indices with the highest keys; newest first on equal keys
+        int[] top(int k) {
+            int[] out = new int[k];
+            int n = 0;
+            for (int key = lists.length - 1; key >= 0 && n < k; key--) {
+                for (int i = counts[key] - 1; i >= 0 && n < k; i--) out[n++] = lists[key][i];
+            }
+            return n == k ? out : Arrays.copyOf(out, n);
+        }
+    }
+
+    public void add(long timestampMillis, int p1Vp, int p2Vp) {
+        if (size == timestamps.length) {
+            int n = size * 2;
+            timestamps = Arrays.copyOf(timestamps, n);
+            player1Vp = Arrays.copyOf(player1Vp, n);
+            player2Vp = Arrays.copyOf(player2Vp, n);
+        }
+        if (size > 0) timestampMillis = Math.max(timestampMillis, timestamps[size - 1]);
+        timestamps[size] = timestampMillis;
+        player1Vp[size] = p1Vp;
+        player2Vp[size] = p2Vp;
+        byMargin.add(Math.abs(p1Vp - p2Vp), size);
+        byTotalVp.add(Math.max(0, p1Vp + p2Vp), size);
+        size++;
+    }
+
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+
+    // Index 0 is the oldest result
+    public long timestampAt(int i) { return timestamps[check(i)]; }
+    public int player1VpAt(int i) { return player1Vp[check(i)]; }
+    public int player2VpAt(int i) { return player2Vp[check(i)]; }
+
+    // Indices of the latest n results, newest first
+    public int[] latest(int n) {
+        int[] out = new int[Math.min(Math.max(n, 0), size)];
+        for (int i = 0; i < out.length; i++) out[i] = size - 1 - i;
+        return out;
+    }
+
+    // Indices of the k most one-sided results, largest margin first
+    public int[] topByMargin(int k) {
+        return byMargin.top(Math.min(Math.max(k, 0), size));
+    }
+
+    // Indices of the k highest-scoring results (P1 + P2 VP), highest first
+    public int[] topByTotalVp(int k) {
+        return byTotalVp.top(Math.min(Math.max(k, 0), size));
+    }
+
+    // Index of the first result at or after millis; size() if there is none.
+    // The results in [fromMillis, toMillis) are the indices
+    // firstAtOrAfter(fromMillis) up to, not including, firstAtOrAfter(toMillis).
+    public int firstAtOrAfter(long millis) {
+        int lo = 0, hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (timestamps[mid] < millis) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private int check(int i) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException("No result " + i + " of " + size);
+        return i;
+    }
+}
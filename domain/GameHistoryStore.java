@@ -0,0 +1,12 @@
+package domain;
+
+// Append-only record of completed games, see GameHistory.
+public interface GameHistoryStore {
+    void append(long timestampMillis, int player1Vp, int player2Vp);
+
+    // Adds every stored result to history, oldest first.
+    void loadInto(GameHistory history);
+
+    // Releases any open file; the store is not used afterwards.
+    default void close() {}
+}
@@ -0,0 +1,14 @@
+package domain;
+
+// Change notifications from Game, fired on the thread that made the move
+// once Game.getPublishedState() includes it. A UI can use them to update
+// only what changed instead of redrawing.
+public interface GameListener {
+    default void chipsChanged(int seat) { }
+    default void cardRemoved(int slot) { }
+    default void turnChanged(int currentSeat) { }
+    default void leaderboardUpdated() { }
+
+    // New game or replaced position: everything may have changed
+    default void boardReset() { }
+}
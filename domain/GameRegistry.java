@@ -0,0 +1,104 @@
+package domain;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// Headless host for many independent games, keyed by id.
+//
+// Each game has its own lock, so moves on different games run in parallel
+// while moves on the same game are serialized. Game itself is not thread-safe:
+// only touch it inside withGame/run. Games are loaded lazily from the stores
+// the factories return for their id, so the stores (and the KeyValueStore
+// under them) must be safe for concurrent use.
+public class GameRegistry {
+    private static final class Slot {
+        volatile Game game; // read without the lock by spectate()
+        SnapshotStore store;
+        boolean retired;
+    }
+
+    private final ConcurrentHashMap<String, Slot> games = new ConcurrentHashMap<>();
+    private final Function<String, SnapshotStore> snapshotStores;
+    private final Function<String, LeaderboardStore> leaderboardStores;
+
+    public GameRegistry(Function<String, SnapshotStore> snapshotStores,
+                        Function<String, LeaderboardStore> leaderboardStores) {
+        this.snapshotStores = snapshotStores;
+        this.leaderboardStores = leaderboardStores;
+    }
+
+    // Starts a fresh game under id, like pressing New Game.
+    public void create(String id) {
+        run(id, Game::startNewGame);
+    }
+
+    // Runs action with exclusive access to the game, loading or creating it first.
+    public <R> R withGame(String id, Function<Game, R> action) {
+        while (true) {
+            Slot slot = games.computeIfAbsent(id, k -> new Slot());
+            synchronized (slot) {
+                if (slot.retired) continue; // lost a race with retire(); use the new slot
+                if (slot.game == null) {
+                    slot.store = snapshotStores.apply(id);
+                    slot.game = Game.loadOrNew(slot.store, leaderboardStores.apply(id));
+                }
+                return action.apply(slot.game);
+            }
+        }
+    }
+
+    public void run(String id, Consumer<Game> action) {
+        withGame(id, g -> {
+            action.accept(g);
+            return null;
+        });
+    }
+
+    // Latest position of a loaded game without taking its lock, so any number
+    // of spectators never hold up the players. null if the game is not loaded.
+    public GameState spectate(String id) {
+        Slot slot = games.get(id);
+        Game g = slot != null ? slot.game : null;
+        return g != null ? g.getPublishedState() : null;
+    }
+
+    public boolean isActive(String id) {
+        return games.containsKey(id);
+    }
+
+    public int activeCount() {
+        return games.size();
+    }
+
+    // Unloads the game but keeps its saved snapshot. The snapshot is flushed
+    // before the game is unmapped, so whoever loads the id next sees it.
+    public void evict(String id) {
+        Slot slot = games.get(id);
+        if (slot == null) return;
+        synchronized (slot) {
+            if (slot.retired) return; // already unloaded
+            if (slot.store != null) slot.store.awaitPersisted();
+            slot.retired = true;
+            games.remove(id, slot);
+        }
+    }
+
+    // Unloads the game and deletes its saved snapshot. The id stays mapped
+    // (to a placeholder if it was not loaded) until the snapshot is gone, so
+    // nobody can load it in between, or recreate it only to be wiped.
+    public void retire(String id) {
+        while (true) {
+            Slot slot = games.computeIfAbsent(id, k -> new Slot());
+            synchronized (slot) {
+                if (slot.retired) continue; // unloaded meanwhile; use the new slot
+                SnapshotStore store = slot.store != null ? slot.store : snapshotStores.apply(id);
+                store.clear();
+                store.awaitPersisted();
+                slot.retired = true;
+                games.remove(id, slot);
+                return;
+            }
+        }
+    }
+}
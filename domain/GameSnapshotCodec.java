@@ -3,43 +3,119 @@
 
 package domain;
 
+import metrics.LatencyHistogram;
+import metrics.Metrics;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.stream.Collectors;
 
 public class GameSnapshotCodec {
 
-    // Snapshot format:
+    // Text snapshot format:
     // P0:chips=R0,B1,G0,K2,W0;vp=3
     // P1:chips=R0,B0,G0,K0,W0;vp=0
     // TURN:current=0;choseChipAction=true;chipsTaken=R,B
     // BOARD:C1|1|B2K2;C2|2|R3
+    // SEQ:42                      (only when seq > 0)
+    // Every card is written out in full, so text decodes against any deck;
+    // cards the deck does not define come back as inline cards.
+    //
+    // Binary snapshot format (stored as Base64, which never contains ':', or
+    // written unencoded by stores that accept encodeToBuffer):
+    // magic 0xB5, version, varint seq, varint deck size, i32 deck fingerprint
+    // per player: 5 x u16 chip counts in ChipColor order, varint vp
+    // turn: u8 current, u8 flags (1 = choseChipAction), u8 count, count x u8 color
+    // board: varint count, per card varint ref (i + 1 = deck card i, 0 = inline card)
+    // inline card: u8 id length, id bytes (UTF-8), varint vp, 5 x u8 cost
+
+    public enum Format { TEXT, BINARY }
+
+    private static final LatencyHistogram ENCODE_LATENCY = Metrics.histogram("codec.encode");
+    private static final LatencyHistogram DECODE_LATENCY = Metrics.histogram("codec.decode");
+
+    static final int MAGIC = 0xB5;
+    static final int VERSION = 1;
+
+    private static final ChipColor[] COLORS = ChipColor.values();
+    private static final ThreadLocal<ByteBuffer> BUFFER =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(256));
+
+    private final Format format;
+    private final CardCatalog deck; // cards are written as references into this
+
+    public GameSnapshotCodec() {
+        this(Format.TEXT);
+    }
+
+    public GameSnapshotCodec(Format format) {
+        this(format, CardCatalog.standard());
+    }
+
+    public GameSnapshotCodec(Format format, CardCatalog deck) {
+        this.format = format;
+        this.deck = deck;
+    }
 
+    // Must be called by the thread making moves; others encode g.getPublishedState().
     public String encode(Game g) {
+        return encode(g.getState());
+    }
+
+    public String encode(GameState s) {
+        return encode(s, 0);
+    }
+
+    // seq is the number of the last journaled move the snapshot includes, so a
+    // journal replayed over it can skip what is already applied; 0 if none.
+    public String encode(GameState s, long seq) {
+        long start = System.nanoTime();
+        try {
+            if (format == Format.BINARY) {
+                return Base64.getEncoder().encodeToString(encodeBinary(s, seq));
+            }
+            return encodeText(s, seq);
+        } finally {
+            ENCODE_LATENCY.recordSince(start);
+        }
+    }
+
+    public String encodeText(Game g) {
+        return encodeText(g.getState());
+    }
+
+    public String encodeText(GameState s) {
+        return encodeText(s, 0);
+    }
+
+    public String encodeText(GameState s, long seq) {
         StringBuilder sb = new StringBuilder();
 
         for (int i = 0; i < 2; i++) {
-            Player p = g.getPlayer(i);
+            GameState.PlayerState p = s.getPlayer(i);
             sb.append("P").append(i).append(":chips=");
             sb.append(encodeChips(p));
             sb.append(";vp=").append(p.getVictoryPoints()).append("\n");
         }
 
-        TurnState t = g.getTurnState();
-        sb.append("TURN:current=").append(t.getCurrentPlayerIndex());
-        sb.append(";choseChipAction=").append(t.hasChoseChipAction());
+        sb.append("TURN:current=").append(s.getCurrentPlayerIndex());
+        sb.append(";choseChipAction=").append(s.hasChoseChipAction());
         sb.append(";chipsTaken=");
-        sb.append(
-                t.getChipsTakenThisTurn().stream()
-                        .map(c -> String.valueOf(c.toChar()))
-                        .collect(Collectors.joining(","))
-        );
+        for (int i = 0; i < s.chipsTakenCount(); i++) {
+            if (i > 0) sb.append(",");
+            sb.append(s.chipTaken(i).toChar());
+        }
         sb.append("\n");
 
         sb.append("BOARD:");
-        List<Card> cards = g.getBoard().getAvailable();
-        for (int i = 0; i < cards.size(); i++) {
-            if (i > 0) sb.append(";");
-            Card c = cards.get(i);
+        boolean first = true;
+        for (int slot = 0; slot < s.slotCount(); slot++) {
+            Card c = s.cardAt(slot);
+            if (c == null) continue;
+            if (!first) sb.append(";");
+            first = false;
             sb.append(c.getId())
               .append("|")
               .append(c.getVictoryPoints())
@@ -47,138 +123,245 @@ public class GameSnapshotCodec {
               .append(c.costString());
         }
         sb.append("\n");
+        if (seq > 0) sb.append("SEQ:").append(seq).append("\n");
 
         return sb.toString();
     }
 
     public Game decode(String snapshot, SnapshotStore store, LeaderboardStore leaderboardStore, Leaderboard leaderboard) {
-        Game g = Game.newEmpty(store, leaderboardStore, leaderboard);
+        Game g = Game.newEmpty(store, leaderboardStore, leaderboard, deck);
         if (snapshot == null || snapshot.isBlank()) {
             return g;
         }
 
-        Map<String, String> lines = new HashMap<>();
-        for (String line : snapshot.split("\n")) {
-            int idx = line.indexOf(':');
-            if (idx > 0) {
-                lines.put(line.substring(0, idx), line.substring(idx + 1));
+        long start = System.nanoTime();
+        try {
+            if (isRawBinary(snapshot)) {
+                decodeBinaryInto(g, snapshot.getBytes(StandardCharsets.ISO_8859_1));
+            } else if (isText(snapshot)) {
+                decodeTextInto(g, snapshot);
+            } else {
+                decodeBinaryInto(g, Base64.getDecoder().decode(snapshot.trim()));
             }
+        } finally {
+            DECODE_LATENCY.recordSince(start);
         }
 
-        // Players
-        for (int i = 0; i < 2; i++) {
-            String line = lines.get("P" + i);
-            if (line != null) {
-                parsePlayerInto(g.getPlayer(i), line);
-            }
-        }
+        g.recomputeProgress();
+        g.publishState();
+        return g;
+    }
 
-        // Turn
-        String turnLine = lines.get("TURN");
-        if (turnLine != null) {
-            parseTurnInto(g.getTurnState(), turnLine);
-        }
+    // Unencoded bytes, one char per byte, as read back by ChannelSnapshotStore.
+    // Text starts with a section name and Base64 is ASCII, so neither starts with 0xB5.
+    static boolean isRawBinary(String snapshot) {
+        return snapshot.charAt(0) == MAGIC;
+    }
 
-        // Board
-        String boardLine = lines.get("BOARD");
-        if (boardLine != null) {
-            parseBoardInto(g.getBoard(), boardLine);
-        }
+    // Old saves are always text; Base64 never contains ':'
+    static boolean isText(String snapshot) {
+        return snapshot.indexOf(':') >= 0;
+    }
 
-        g.recomputeProgress();
-        return g;
+    private void decodeTextInto(Game g, String snapshot) {
+        new TextSnapshotParser(snapshot, deck).parseInto(g);
     }
 
-    // ---------- Helpers ----------
+    // ---------- Binary ----------
 
-    private String encodeChips(Player p) {
-        StringBuilder sb = new StringBuilder();
-        boolean first = true;
-        for (ChipColor c : ChipColor.values()) {
-            if (!first) sb.append(",");
-            first = false;
-            sb.append(c.toChar()).append(p.getChips(c));
-        }
-        return sb.toString();
+    public byte[] encodeBinary(Game g) {
+        return encodeBinary(g.getState());
     }
 
-    private void parsePlayerInto(Player p, String data) {
-        p.reset();
+    public byte[] encodeBinary(GameState s) {
+        return encodeBinary(s, 0);
+    }
 
-        String[] parts = data.split(";");
-        for (String part : parts) {
-            part = part.trim();
-            if (part.startsWith("chips=")) {
-                String chips = part.substring("chips=".length());
-                for (String token : chips.split(",")) {
-                    if (token.isEmpty()) continue;
-                    ChipColor c = ChipColor.fromChar(token.charAt(0));
-                    int n = Integer.parseInt(token.substring(1));
-                    p.addChip(c, n);
-                }
-            } else if (part.startsWith("vp=")) {
-                p.setVictoryPoints(Integer.parseInt(part.substring(3)));
+    public byte[] encodeBinary(GameState s, long seq) {
+        ByteBuffer buf = fillBuffer(s, seq);
+        byte[] out = new byte[buf.remaining()];
+        buf.get(out);
+        return out;
+    }
+
+    // The binary snapshot, unencoded, in this thread's reusable buffer (flipped,
+    // ready to write). Only valid until the thread's next call; stores that
+    // accept it (SnapshotStore.acceptsEncodedBuffer) write it straight out.
+    public ByteBuffer encodeToBuffer(GameState s) {
+        return encodeToBuffer(s, 0);
+    }
+
+    public ByteBuffer encodeToBuffer(GameState s, long seq) {
+        long start = System.nanoTime();
+        try {
+            return fillBuffer(s, seq);
+        } finally {
+            ENCODE_LATENCY.recordSince(start);
+        }
+    }
+
+    private ByteBuffer fillBuffer(GameState s, long seq) {
+        ByteBuffer buf = BUFFER.get();
+        while (true) {
+            buf.clear();
+            try {
+                writeBinary(s, seq, buf);
+                return buf.flip();
+            } catch (BufferOverflowException e) { // a deck bigger than any before
+                buf = ByteBuffer.allocateDirect(buf.capacity() * 2);
+                BUFFER.set(buf);
             }
         }
     }
 
-    private void parseTurnInto(TurnState t, String data) {
-        int current = 0;
-        boolean chose = false;
-        List<ChipColor> chipsTaken = new ArrayList<>();
-
-        String[] parts = data.split(";");
-        for (String part : parts) {
-            part = part.trim();
-            if (part.startsWith("current=")) {
-                current = Integer.parseInt(part.substring("current=".length()));
-            } else if (part.startsWith("choseChipAction=")) {
-                chose = Boolean.parseBoolean(part.substring("choseChipAction=".length()));
-            } else if (part.startsWith("chipsTaken=")) {
-                String list = part.substring("chipsTaken=".length());
-                if (!list.isBlank()) {
-                    for (String tok : list.split(",")) {
-                        chipsTaken.add(ChipColor.fromChar(tok.charAt(0)));
-                    }
-                }
+    private void writeBinary(GameState s, long seq, ByteBuffer out) {
+        out.put((byte) MAGIC);
+        out.put((byte) VERSION);
+        writeVarlong(out, seq);
+        writeVarint(out, deck.size());
+        out.putInt(deck.fingerprint());
+
+        for (int i = 0; i < 2; i++) {
+            GameState.PlayerState p = s.getPlayer(i);
+            for (ChipColor c : COLORS) {
+                int n = p.getChips(c);
+                if (n > 0xFFFF) throw new IllegalStateException("Chip count out of range: " + n);
+                out.putShort((short) n);
             }
+            writeVarint(out, p.getVictoryPoints());
         }
 
-        t.restore(current, chose, chipsTaken);
+        out.put((byte) s.getCurrentPlayerIndex());
+        out.put((byte) (s.hasChoseChipAction() ? 1 : 0));
+        out.put((byte) s.chipsTakenCount());
+        for (int i = 0; i < s.chipsTakenCount(); i++) out.put((byte) s.chipTaken(i).ordinal());
+
+        writeVarint(out, s.liveCardCount());
+        for (int slot = 0; slot < s.slotCount(); slot++) {
+            Card c = s.cardAt(slot);
+            if (c == null) continue;
+            int idx = deck.indexOf(c);
+            if (idx >= 0) {
+                writeVarint(out, idx + 1);
+            } else {
+                writeVarint(out, 0);
+                byte[] id = c.getId().getBytes(StandardCharsets.UTF_8);
+                if (id.length > 0xFF) throw new IllegalStateException("Card id too long: " + c.getId());
+                out.put((byte) id.length);
+                out.put(id);
+                writeVarint(out, c.getVictoryPoints());
+                for (ChipColor color : COLORS) out.put((byte) c.getCost(color));
+            }
+        }
     }
 
-    private void parseBoardInto(Board b, String data) {
-        List<Card> cards = new ArrayList<>();
+    private void decodeBinaryInto(Game g, byte[] data) {
+        ByteBuffer in = ByteBuffer.wrap(data);
+        try {
+            if (data.length < 2 || (in.get() & 0xFF) != MAGIC) {
+                throw new IllegalArgumentException("Not a binary snapshot");
+            }
+            int version = in.get() & 0xFF;
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported snapshot version: " + version);
+            }
+            g.restoreSeq(readVarlong(in));
+            int savedSize = readVarint(in);
+            int savedFingerprint = in.getInt();
+            if (savedSize != deck.size() || savedFingerprint != deck.fingerprint()) {
+                throw new IllegalArgumentException("Snapshot was saved with a different deck (" + savedSize
+                        + " cards, fingerprint " + Integer.toHexString(savedFingerprint) + ") than this game's ("
+                        + deck.size() + " cards, fingerprint " + Integer.toHexString(deck.fingerprint()) + ")");
+            }
 
-        if (!data.isBlank()) {
-            for (String entry : data.split(";")) {
-                String[] bits = entry.split("\\|");
-                if (bits.length != 3) continue;
+            for (int i = 0; i < 2; i++) {
+                Player p = g.getPlayer(i);
+                p.reset();
+                for (ChipColor c : ChipColor.values()) p.addChip(c, in.getShort() & 0xFFFF);
+                p.setVictoryPoints(readVarint(in));
+            }
+
+            int current = in.get() & 0xFF;
+            boolean chose = (in.get() & 1) != 0;
+            int n = in.get() & 0xFF;
+            List<ChipColor> taken = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) taken.add(ChipColor.values()[in.get()]);
+            g.getTurnState().restore(current, chose, taken);
 
-                String id = bits[0];
-                int vp = Integer.parseInt(bits[1]);
-                Map<ChipColor, Integer> cost = parseCost(bits[2]);
-                cards.add(new Card(id, vp, cost));
+            int count = readVarint(in);
+            List<Card> cards = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int ref = readVarint(in);
+                if (ref > 0) {
+                    if (ref > deck.size()) throw new IllegalArgumentException("Card " + ref + " is not in the deck");
+                    cards.add(deck.get(ref - 1));
+                    continue;
+                }
+                byte[] id = new byte[in.get() & 0xFF];
+                in.get(id);
+                int vp = readVarint(in);
+                int cost = 0;
+                for (ChipColor c : COLORS) cost = PackedChips.withCost(cost, c, in.get() & 0xFF);
+                cards.add(deck.intern(new String(id, StandardCharsets.UTF_8), vp, cost));
             }
+            restoreBoard(g, cards);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated or corrupt binary snapshot", e);
         }
+    }
 
-        b.resetWith15Cards(cards);
+    // Cards still in deck order go back to their deck slots; anything else
+    // (inline cards, old saves) is laid out as listed.
+    static void restoreBoard(Game g, List<Card> cards) {
+        if (!g.getBoard().dealRemaining(g.getDeck(), cards)) g.getBoard().resetWith15Cards(cards);
     }
 
-    private Map<ChipColor, Integer> parseCost(String s) {
-        Map<ChipColor, Integer> cost = new EnumMap<>(ChipColor.class);
-        for (ChipColor c : ChipColor.values()) cost.put(c, 0);
+    private static void writeVarint(ByteBuffer out, int v) {
+        while ((v & ~0x7F) != 0) {
+            out.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.put((byte) v);
+    }
 
-        if (s.equalsIgnoreCase("FREE")) return cost;
+    private static void writeVarlong(ByteBuffer out, long v) {
+        while ((v & ~0x7FL) != 0) {
+            out.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.put((byte) v);
+    }
 
-        for (int i = 0; i < s.length(); ) {
-            char ch = s.charAt(i++);
-            int start = i;
-            while (i < s.length() && Character.isDigit(s.charAt(i))) i++;
-            int n = Integer.parseInt(s.substring(start, i));
-            cost.put(ChipColor.fromChar(ch), n);
+    private static long readVarlong(ByteBuffer in) {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.get() & 0xFF;
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
         }
+        throw new IllegalArgumentException("Malformed varint");
+    }
 
-        return cost;
+    private static int readVarint(ByteBuffer in) {
+        int v = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.get() & 0xFF;
+            v |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    // ---------- Text helpers ----------
+
+    private String encodeChips(GameState.PlayerState p) {
+        StringBuilder sb = new StringBuilder();
+        boolean first = true;
+        for (ChipColor c : ChipColor.values()) {
+            if (!first) sb.append(",");
+            first = false;
+            sb.append(c.toChar()).append(p.getChips(c));
+        }
+        return sb.toString();
     }
 }
@@ -0,0 +1,111 @@
+package domain;
+
+// Immutable version of a game position. Game hands out a new one after
+// every move and each shares whatever the move did not touch with the
+// previous version: the dealt cards are one array per deal, a chip move
+// replaces one PlayerState and keeps the board words, and the turn is a
+// single packed int. Keeping every version (undo/redo, branching, saving
+// later) therefore costs a few small objects per move and never a copy.
+public final class GameState {
+    // Per-seat score and chips (PackedChips lanes)
+    public static final class PlayerState {
+        private final int victoryPoints;
+        private final long chips;
+
+        PlayerState(int victoryPoints, long chips) {
+            this.victoryPoints = victoryPoints;
+            this.chips = chips;
+        }
+
+        public int getVictoryPoints() { return victoryPoints; }
+        public int getChips(ChipColor c) { return PackedChips.get(chips, c); }
+
+        long getPackedChips() { return chips; }
+
+        boolean matches(Player p) {
+            return victoryPoints == p.getVictoryPoints() && chips == p.getPackedChips();
+        }
+    }
+
+    // Turn packing: bit 0 seat to move, bit 1 chose chip action,
+    // bits 2-3 chips taken, then 3 bits per taken color from bit 4.
+    static final int CHOSE_CHIPS = 1 << 1;
+    static final int COUNT_SHIFT = 2;
+    static final int COLOR_SHIFT = 4;
+    private static final ChipColor[] COLORS = ChipColor.values();
+
+    private final Card[] deal;   // shared by every version of one deal
+    private final long[] live;   // slot bitset; shared until a card is bought
+    private final int liveCount;
+    private final PlayerState[] players;
+    private final int turn;
+
+    GameState(Card[] deal, long[] live, int liveCount, PlayerState[] players, int turn) {
+        this.deal = deal;
+        this.live = live;
+        this.liveCount = liveCount;
+        this.players = players;
+        this.turn = turn;
+    }
+
+    // The position game is in now, sharing all unchanged parts with prev (may be null).
+    // prev must be the version captured or restored last on this board: within
+    // one deal cards only go away, so an equal count means the same live set.
+    static GameState capture(GameState prev, Board board, Player[] seats, TurnState turnState) {
+        Card[] deal = board.dealtCards();
+        long[] live = prev != null && prev.deal == deal && prev.liveCount == board.liveCount()
+                ? prev.live
+                : board.liveWords().clone();
+
+        PlayerState[] prevPlayers = prev != null ? prev.players : null;
+        PlayerState[] players = prevPlayers;
+        for (int seat = 0; seat < seats.length; seat++) {
+            if (prevPlayers != null && prevPlayers[seat].matches(seats[seat])) continue;
+            if (players == prevPlayers) {
+                players = prevPlayers == null ? new PlayerState[seats.length] : prevPlayers.clone();
+            }
+            players[seat] = new PlayerState(seats[seat].getVictoryPoints(), seats[seat].getPackedChips());
+        }
+        return new GameState(deal, live, board.liveCount(), players, turnState.packed());
+    }
+
+    // Rewinds the mutable game objects to this version
+    void restoreInto(Board board, Player[] seats, TurnState turnState) {
+        for (int seat = 0; seat < seats.length; seat++) {
+            seats[seat].restore(players[seat].victoryPoints, players[seat].chips);
+        }
+        board.restore(deal, live, liveCount);
+        turnState.restorePacked(turn);
+    }
+
+    // ---------- Reads ----------
+    public int getCurrentPlayerIndex() { return turn & 1; }
+    public boolean hasChoseChipAction() { return (turn & CHOSE_CHIPS) != 0; }
+    public int chipsTakenCount() { return (turn >>> COUNT_SHIFT) & 3; }
+
+    public ChipColor chipTaken(int i) {
+        if (i < 0 || i >= chipsTakenCount()) throw new IndexOutOfBoundsException("Chip " + i);
+        return COLORS[(turn >>> (COLOR_SHIFT + 3 * i)) & 7];
+    }
+
+    public PlayerState getPlayer(int seat) { return players[seat]; }
+
+    public int slotCount() { return deal.length; }
+
+    // null once the card in that slot has been bought
+    public Card cardAt(int slot) {
+        return (live[slot >>> 6] & (1L << slot)) != 0 ? deal[slot] : null;
+    }
+
+    public int liveCardCount() { return liveCount; }
+    public boolean isGameOver() { return liveCount == 0; }
+
+    // 1 or 2, or 0 for a tie
+    public int getWinnerPlayerNumber() {
+        int p1Vp = players[0].victoryPoints;
+        int p2Vp = players[1].victoryPoints;
+        if (p1Vp > p2Vp) return 1;
+        if (p2Vp > p1Vp) return 2;
+        return 0;
+    }
+}
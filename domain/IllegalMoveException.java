@@ -4,7 +4,19 @@
 package domain;
 
 public class IllegalMoveException extends RuntimeException {
+    private final MoveResult result;
+
     public IllegalMoveException(String message) {
         super(message);
+        this.result = null;
+    }
+
+    // Rule violations are expected and frequent, so skip the stack trace.
+    public IllegalMoveException(MoveResult result) {
+        super(result.message(), null, false, false);
+        this.result = result;
     }
-}
\ No newline at end of file
+
+    // The rule that was broken, or null for other illegal operations
+    public MoveResult getResult() { return result; }
+}
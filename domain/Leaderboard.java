@@ -28,6 +28,13 @@ public class Leaderboard {
 
     private final Deque<Entry> entries = new ArrayDeque<>();
 
+    // Covers every result recorded, not just the last four kept in entries.
+    // Saved after the entries, past STATS_SEPARATOR.
+    private final LeaderboardStats stats = new LeaderboardStats();
+    private boolean statsStored = false;
+
+    private static final char STATS_SEPARATOR = '#';
+
     public List<Entry> getEntries() {
         return Collections.unmodifiableList(new ArrayList<>(entries));
     }
@@ -36,11 +43,31 @@ public class Leaderboard {
         return entries.isEmpty();
     }
 
+    public LeaderboardStats getStats() {
+        return stats;
+    }
+
     public void addEntry(int player1Vp, int player2Vp, long timestampMillis) {
         entries.addFirst(new Entry(timestampMillis, player1Vp, player2Vp));
+        stats.record(player1Vp, player2Vp);
         trimToLastFour();
     }
 
+    // True if the stats were decoded as saved, so they already cover every
+    // game ever recorded. Data saved before the stats were stored has none,
+    // and its stats only cover the decoded entries until rebuildStats.
+    public boolean hasStoredStats() {
+        return statsStored;
+    }
+
+    // Recomputes the stats from the full history, oldest first
+    public void rebuildStats(GameHistory history) {
+        stats.clear();
+        for (int i = 0; i < history.size(); i++) {
+            stats.record(history.player1VpAt(i), history.player2VpAt(i));
+        }
+    }
+
     public String encode() {
         StringBuilder sb = new StringBuilder();
         boolean first = true;
@@ -53,6 +80,7 @@ public class Leaderboard {
               .append(",")
               .append(e.player2Vp);
         }
+        sb.append(STATS_SEPARATOR).append(stats.encode());
         return sb.toString();
     }
 
@@ -60,6 +88,10 @@ public class Leaderboard {
         Leaderboard lb = new Leaderboard();
         if (data == null || data.isBlank()) return lb;
 
+        int sep = data.indexOf(STATS_SEPARATOR);
+        String stored = sep < 0 ? null : data.substring(sep + 1);
+        if (sep >= 0) data = data.substring(0, sep);
+
         for (String entry : data.split(";")) {
             String[] bits = entry.split(",");
             if (bits.length != 3) continue;
@@ -73,6 +105,12 @@ public class Leaderboard {
         }
 
         lb.trimToLastFour();
+        lb.statsStored = lb.stats.decode(stored);
+        if (lb.statsStored) return lb;
+        for (var it = lb.entries.descendingIterator(); it.hasNext(); ) {
+            Entry e = it.next();
+            lb.stats.record(e.player1Vp, e.player2Vp);
+        }
         return lb;
     }
 
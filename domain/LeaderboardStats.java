@@ -0,0 +1,132 @@
+package domain;
+
+import java.util.Arrays;
+
+// Running aggregates over every recorded result, each updated in O(1) by
+// record(): games played, wins per seat and ties, mean and variance of each
+// seat's VP (Welford), the longest win streak per seat, and a histogram of
+// the winning margin for approximate quantiles.
+public class LeaderboardStats {
+    // Margins 0..MAX_EXACT_MARGIN are counted exactly; larger ones share the last bucket.
+    static final int MAX_EXACT_MARGIN = 63;
+
+    private static final String ENCODING_VERSION = "S1:";
+
+    private long games;
+    private final long[] wins = new long[2];
+    private long ties;
+
+    private final double[] vpMean = new double[2];
+    private final double[] vpM2 = new double[2];
+
+    private int streakSeat = -1;
+    private int streakLength;
+    private final int[] longestStreak = new int[2];
+
+    private final long[] marginCounts = new long[MAX_EXACT_MARGIN + 2];
+
+    public void record(int player1Vp, int player2Vp) {
+        games++;
+
+        int winner = player1Vp > player2Vp ? 0 : player2Vp > player1Vp ? 1 : -1;
+        if (winner < 0) ties++;
+        else wins[winner]++;
+
+        addVp(0, player1Vp);
+        addVp(1, player2Vp);
+
+        if (winner < 0) {
+            streakSeat = -1;
+            streakLength = 0;
+        } else {
+            streakLength = winner == streakSeat ? streakLength + 1 : 1;
+            streakSeat = winner;
+            longestStreak[winner] = Math.max(longestStreak[winner], streakLength);
+        }
+
+        marginCounts[Math.min(Math.abs(player1Vp - player2Vp), MAX_EXACT_MARGIN + 1)]++;
+    }
+
+    private void addVp(int seat, int vp) {
+        double delta = vp - vpMean[seat];
+        vpMean[seat] += delta / games;
+        vpM2[seat] += delta * (vp - vpMean[seat]);
+    }
+
+    public void clear() {
+        games = 0;
+        ties = 0;
+        streakSeat = -1;
+        streakLength = 0;
+        for (int s = 0; s < 2; s++) {
+            wins[s] = 0;
+            vpMean[s] = 0;
+            vpM2[s] = 0;
+            longestStreak[s] = 0;
+        }
+        Arrays.fill(marginCounts, 0);
+    }
+
+    // Every field as one comma-separated line, so the aggregates can be saved
+    // with the leaderboard instead of being rebuilt from the full history.
+    // Doubles use Double.toString, which parses back to the same value.
+    String encode() {
+        StringBuilder sb = new StringBuilder(ENCODING_VERSION);
+        sb.append(games).append(',').append(wins[0]).append(',').append(wins[1]).append(',').append(ties);
+        for (int s = 0; s < 2; s++) sb.append(',').append(vpMean[s]).append(',').append(vpM2[s]);
+        sb.append(',').append(streakSeat).append(',').append(streakLength);
+        sb.append(',').append(longestStreak[0]).append(',').append(longestStreak[1]);
+        for (long c : marginCounts) sb.append(',').append(c);
+        return sb.toString();
+    }
+
+    // Replaces this with what encode() wrote. Returns false, leaving this
+    // cleared, if data is not a complete encoding.
+    boolean decode(String data) {
+        clear();
+        if (data == null || !data.startsWith(ENCODING_VERSION)) return false;
+        String[] f = data.substring(ENCODING_VERSION.length()).split(",");
+        if (f.length != 12 + marginCounts.length) return false;
+        try {
+            games = Long.parseLong(f[0]);
+            wins[0] = Long.parseLong(f[1]);
+            wins[1] = Long.parseLong(f[2]);
+            ties = Long.parseLong(f[3]);
+            for (int s = 0; s < 2; s++) {
+                vpMean[s] = Double.parseDouble(f[4 + 2 * s]);
+                vpM2[s] = Double.parseDouble(f[5 + 2 * s]);
+            }
+            streakSeat = Integer.parseInt(f[8]);
+            streakLength = Integer.parseInt(f[9]);
+            longestStreak[0] = Integer.parseInt(f[10]);
+            longestStreak[1] = Integer.parseInt(f[11]);
+            for (int m = 0; m < marginCounts.length; m++) marginCounts[m] = Long.parseLong(f[12 + m]);
+            return true;
+        } catch (NumberFormatException e) {
+            clear();
+            return false;
+        }
+    }
+
+    // Seats are 0 and 1
+    public long gamesPlayed() { return games; }
+    public long wins(int seat) { return wins[seat]; }
+    public long losses(int seat) { return wins[1 - seat]; }
+    public long ties() { return ties; }
+    public double meanVp(int seat) { return vpMean[seat]; }
+    public double vpVariance(int seat) { return games < 2 ? 0 : vpM2[seat] / (games - 1); }
+    public int longestWinStreak(int seat) { return longestStreak[seat]; }
+
+    // Smallest margin m such that at least fraction q of games were won by m
+    // or less. Exact up to MAX_EXACT_MARGIN, which stands in for anything larger.
+    public int marginQuantile(double q) {
+        if (games == 0) return 0;
+        long rank = (long) Math.ceil(Math.max(0, Math.min(1, q)) * games);
+        long seen = 0;
+        for (int m = 0; m < marginCounts.length; m++) {
+            seen += marginCounts[m];
+            if (seen >= rank && seen > 0) return Math.min(m, MAX_EXACT_MARGIN);
+        }
+        return MAX_EXACT_MARGIN;
+    }
+}
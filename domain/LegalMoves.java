@@ -0,0 +1,78 @@
+package domain;
+
+// Lists the legal moves of the current player without trying them.
+//
+// Moves are encoded as ints so callers can reuse one buffer:
+//   bits 24..31 move type (TAKE_CHIP or BUY_CARD)
+//   bits  0..23 ChipColor ordinal or board slot
+// generate() mirrors the checks in Game.takeChip/buyCard, never throws and
+// never allocates.
+public final class LegalMoves {
+    public static final int TAKE_CHIP = 1;
+    public static final int BUY_CARD = 2;
+
+    private static final int TYPE_SHIFT = 24;
+    private static final int ARG_MASK = (1 << TYPE_SHIFT) - 1;
+    private static final ChipColor[] COLORS = ChipColor.values();
+
+    private LegalMoves() { }
+
+    public static int takeChip(ChipColor c) { return (TAKE_CHIP << TYPE_SHIFT) | c.ordinal(); }
+    public static int buyCard(int slot) { return (BUY_CARD << TYPE_SHIFT) | slot; }
+
+    public static int type(int move) { return move >>> TYPE_SHIFT; }
+    public static ChipColor color(int move) { return COLORS[move & ARG_MASK]; }
+    public static int slot(int move) { return move & ARG_MASK; }
+
+    // A buffer this large always holds every legal move for g
+    public static int maxMoves(Game g) {
+        return COLORS.length + g.getBoard().slotCount();
+    }
+
+    // Writes the legal moves into out and returns how many were written.
+    // Stops early if out is shorter than maxMoves(g).
+    public static int generate(Game g, int[] out) {
+        if (g.isGameOver()) return 0;
+
+        TurnState t = g.getTurnState();
+        int n = t.chipsTakenCount();
+        int count = 0;
+        Player p = g.getPlayer(t.getCurrentPlayerIndex());
+
+        // Chips: any color for the first two, then only a third distinct
+        // color; never one the player already holds the maximum of
+        if (n < 2) {
+            for (ChipColor c : COLORS) {
+                if (!Game.canHoldAnother(p, c)) continue;
+                if (count == out.length) return count;
+                out[count++] = takeChip(c);
+            }
+        } else if (n == 2 && t.chipTaken(0) != t.chipTaken(1)) {
+            ChipColor first = t.chipTaken(0);
+            ChipColor second = t.chipTaken(1);
+            for (ChipColor c : COLORS) {
+                if (c == first || c == second || !Game.canHoldAnother(p, c)) continue;
+                if (count == out.length) return count;
+                out[count++] = takeChip(c);
+            }
+        }
+
+        // Cards: only before taking chips this turn
+        if (!(t.hasChoseChipAction() && n > 0)) {
+            Board b = g.getBoard();
+            int seat = t.getCurrentPlayerIndex();
+            for (int s = b.nextAffordableSlot(seat, 0); s >= 0; s = b.nextAffordableSlot(seat, s + 1)) {
+                if (count == out.length) return count;
+                out[count++] = buyCard(s);
+            }
+        }
+        return count;
+    }
+
+    // Plays a move produced by generate() for the same state.
+    public static MoveResult apply(Game g, int move) {
+        if (type(move) == TAKE_CHIP) return g.tryTakeChip(color(move));
+        Card c = g.getBoard().cardAt(slot(move));
+        return c == null ? MoveResult.CARD_NOT_AVAILABLE : g.tryBuyCard(c.getId());
+    }
+}
@@ -0,0 +1,230 @@
+package domain;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Computer player using Monte Carlo Tree Search over LegalMoves.
+//
+// Root parallel: every worker thread grows its own tree from the same position
+// with its own RNG, and the move with the most visits summed over all trees is
+// played. Each chip pick is a move of its own, so a node remembers which seat
+// made the move leading to it.
+//
+// Trees survive between calls: observe() every move played in the real game
+// (both seats) and each tree descends to the matching child. If the position
+// no longer matches (a missed move, a new game), the trees start over.
+public class MctsPlayer implements AutoCloseable {
+    private static final double EXPLORATION = 1.4;
+    private static final int MAX_PLAYOUT_MOVES = 1_000;
+
+    private static final class Node {
+        Node parent;
+        final int move;
+        final int seatJustMoved;
+        int[] untried; // null until first visited; shrinks as children are added
+        int untriedCount;
+        final List<Node> children = new ArrayList<>();
+        int visits;
+        double wins; // from seatJustMoved's point of view, ties count half
+
+        Node(Node parent, int move, int seatJustMoved) {
+            this.parent = parent;
+            this.move = move;
+            this.seatJustMoved = seatJustMoved;
+        }
+    }
+
+    private static final class Tree {
+        final SplittableRandom rng;
+        final Game scratch = Game.newUnsaved();
+        int[] moves = new int[32];
+        Node root;
+
+        Tree(long seed) {
+            this.rng = new SplittableRandom(seed);
+        }
+    }
+
+    private final Tree[] trees;
+    private final ExecutorService pool;
+    private Game rootPosition; // position every tree's root stands for
+
+    public MctsPlayer(int threads, long seed) {
+        int n = Math.max(1, threads);
+        trees = new Tree[n];
+        SplittableRandom seeds = new SplittableRandom(seed);
+        for (int i = 0; i < n; i++) trees[i] = new Tree(seeds.nextLong());
+        pool = Executors.newFixedThreadPool(n, r -> {
+            Thread t = new Thread(r, "mcts");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // Searches for budgetMillis and returns a LegalMoves move for the player to move.
+    // Returns -1 if there is no legal move.
+    public int chooseMove(Game game, long budgetMillis) {
+        if (rootPosition == null || !rootPosition.samePositionAs(game)) {
+            rootPosition = game.copyUnsaved();
+            for (Tree t : trees) t.root = null;
+        }
+
+        long deadline = System.nanoTime() + budgetMillis * 1_000_000L;
+        List<Future<?>> running = new ArrayList<>();
+        for (Tree t : trees) running.add(pool.submit(() -> search(t, deadline)));
+        try {
+            for (Future<?> f : running) f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Search failed", e.getCause());
+        }
+
+        return mostVisitedMove();
+    }
+
+    // Call for every move played in the real game, including this player's own.
+    public void observe(int move) {
+        if (rootPosition == null) return;
+        if (!isLegal(rootPosition, move)) { // we missed a move or a new game
+            reset();
+            return;
+        }
+        for (Tree t : trees) {
+            Node next = null;
+            if (t.root != null) {
+                for (Node c : t.root.children) {
+                    if (c.move == move) {
+                        next = c;
+                        break;
+                    }
+                }
+            }
+            if (next != null) next.parent = null; // let the rest of the old tree go
+            t.root = next;
+        }
+        LegalMoves.apply(rootPosition, move);
+    }
+
+    private boolean isLegal(Game g, int move) {
+        int[] moves = new int[LegalMoves.maxMoves(g)];
+        int count = LegalMoves.generate(g, moves);
+        for (int i = 0; i < count; i++) if (moves[i] == move) return true;
+        return false;
+    }
+
+    public void reset() {
+        rootPosition = null;
+        for (Tree t : trees) t.root = null;
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    private int mostVisitedMove() {
+        Map<Integer, Long> visits = new HashMap<>();
+        for (Tree t : trees) {
+            for (Node c : t.root.children) visits.merge(c.move, (long) c.visits, Long::sum);
+        }
+
+        int best = -1;
+        long bestVisits = -1;
+        for (var e : visits.entrySet()) {
+            if (e.getValue() > bestVisits) {
+                bestVisits = e.getValue();
+                best = e.getKey();
+            }
+        }
+        Node root = trees[0].root;
+        if (best < 0 && root.untriedCount > 0) best = root.untried[0];
+        return best;
+    }
+
+    private void search(Tree t, long deadline) {
+        if (t.root == null) {
+            t.root = new Node(null, -1, 1 - rootPosition.getTurnState().getCurrentPlayerIndex());
+        }
+        do {
+            iterate(t);
+        } while (System.nanoTime() < deadline);
+    }
+
+    private void iterate(Tree t) {
+        Game g = t.scratch;
+        g.copyStateFrom(rootPosition);
+        Node node = t.root;
+
+        // Selection
+        while (true) {
+            if (node.untried == null) listMoves(t, node, g);
+            if (node.untriedCount > 0 || node.children.isEmpty()) break;
+            node = bestChild(node);
+            LegalMoves.apply(g, node.move);
+        }
+
+        // Expansion
+        if (node.untriedCount > 0) {
+            int i = t.rng.nextInt(node.untriedCount);
+            int move = node.untried[i];
+            node.untried[i] = node.untried[--node.untriedCount];
+            Node child = new Node(node, move, g.getTurnState().getCurrentPlayerIndex());
+            node.children.add(child);
+            LegalMoves.apply(g, move);
+            node = child;
+        }
+
+        // Playout
+        int winner = playout(t, g);
+
+        // Backpropagation
+        for (Node n = node; n != null; n = n.parent) {
+            n.visits++;
+            if (winner < 0) n.wins += 0.5;
+            else if (winner == n.seatJustMoved) n.wins += 1;
+        }
+    }
+
+    private void listMoves(Tree t, Node node, Game g) {
+        int needed = LegalMoves.maxMoves(g);
+        if (t.moves.length < needed) t.moves = new int[needed];
+        int count = LegalMoves.generate(g, t.moves);
+        node.untried = new int[count];
+        System.arraycopy(t.moves, 0, node.untried, 0, count);
+        node.untriedCount = count;
+    }
+
+    private static Node bestChild(Node node) {
+        Node best = null;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        double logVisits = Math.log(node.visits);
+        for (Node c : node.children) {
+            double score = c.wins / c.visits + EXPLORATION * Math.sqrt(logVisits / c.visits);
+            if (score > bestScore) {
+                bestScore = score;
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    // Random moves until the game ends; returns the winning seat or -1 for a tie.
+    private int playout(Tree t, Game g) {
+        for (int i = 0; i < MAX_PLAYOUT_MOVES; i++) {
+            int needed = LegalMoves.maxMoves(g);
+            if (t.moves.length < needed) t.moves = new int[needed];
+            int count = LegalMoves.generate(g, t.moves);
+            if (count == 0) break;
+            LegalMoves.apply(g, t.moves[t.rng.nextInt(count)]);
+        }
+        return g.getWinnerPlayerNumber() - 1;
+    }
+}
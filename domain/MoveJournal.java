@@ -0,0 +1,16 @@
+package domain;
+
+import java.util.List;
+
+// Append-only log of the moves made since the last full snapshot (checkpoint).
+// Records are short strings written by Game: a move number, then the move,
+// e.g. "12 T <color>", "13 B <cardId>", "14 N". Undo and redo write the
+// position they jump to as "15 S <Base64 binary snapshot>".
+public interface MoveJournal {
+    void append(String record);
+    List<String> loadRecords();
+    void clear();
+
+    // Releases any open file; the journal is not used afterwards.
+    default void close() {}
+}
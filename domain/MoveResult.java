@@ -0,0 +1,24 @@
+package domain;
+
+// Outcome of Game.tryTakeChip/tryBuyCard. The constants are shared, so
+// rejecting a move allocates nothing; message() is what getLastError() reports.
+public enum MoveResult {
+    OK(""),
+    GAME_OVER("Game over. Start a new game to keep playing."),
+    BUY_AFTER_CHIPS("You cannot buy a card after taking chips this turn."),
+    CARD_NOT_AVAILABLE("That card is not available."),
+    CANNOT_AFFORD("You cannot afford this card."),
+    THIRD_CHIP_REPEATS("Third chip must be a different color than the first two."),
+    TURN_SHOULD_HAVE_ENDED("Internal state error: turn should have ended after taking 2 same-color chips."),
+    TOO_MANY_CHIPS("You already took the maximum number of chips this turn."),
+    CHIP_LIMIT("You cannot hold any more chips of that color.");
+
+    private final String message;
+
+    MoveResult(String message) {
+        this.message = message;
+    }
+
+    public String message() { return message; }
+    public boolean isOk() { return this == OK; }
+}
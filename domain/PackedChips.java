@@ -0,0 +1,69 @@
+package domain;
+
+// Bit-packed chip vectors.
+//
+// Chip counts: one long, five 12-bit lanes in ChipColor order. Each lane holds
+// a count of 0..2047 in its low 11 bits; the top bit is a guard that is always
+// 0 in a stored value and lets a whole vector be compared with one subtraction.
+//
+// Card costs: one int, five 6-bit lanes (0..63 per color), widened to the
+// chip-lane layout once per card for affordability checks.
+final class PackedChips {
+    static final int LANE_BITS = 12;
+    static final int MAX_CHIPS = 0x7FF;
+    static final int COST_BITS = 6;
+    static final int MAX_COST = 0x3F;
+
+    private static final long GUARDS;
+    static {
+        long g = 0;
+        for (int i = 0; i < ChipColor.values().length; i++) g |= 1L << (i * LANE_BITS + LANE_BITS - 1);
+        GUARDS = g;
+    }
+
+    private PackedChips() { }
+
+    static int get(long chips, ChipColor c) {
+        return (int) (chips >>> (c.ordinal() * LANE_BITS)) & MAX_CHIPS;
+    }
+
+    static long add(long chips, ChipColor c, int n) {
+        int v = get(chips, c) + n;
+        if (v < 0 || v > MAX_CHIPS) throw new IllegalArgumentException("Chip count out of range: " + v);
+        int shift = c.ordinal() * LANE_BITS;
+        return (chips & ~((long) MAX_CHIPS << shift)) | ((long) v << shift);
+    }
+
+    // Setting the guard bits first means a lane only borrows from its own
+    // guard, so a cleared guard marks exactly the colors that fall short.
+    static boolean canAfford(long chips, long costLanes) {
+        return (((chips | GUARDS) - costLanes) & GUARDS) == GUARDS;
+    }
+
+    // Only valid when canAfford(chips, costLanes)
+    static long spend(long chips, long costLanes) {
+        return chips - costLanes;
+    }
+
+    static boolean isEmpty(long chips) {
+        return chips == 0;
+    }
+
+    static int costOf(int cost, ChipColor c) {
+        return (cost >>> (c.ordinal() * COST_BITS)) & MAX_COST;
+    }
+
+    static int withCost(int cost, ChipColor c, int n) {
+        if (n < 0 || n > MAX_COST) throw new IllegalArgumentException("Card cost out of range: " + n);
+        int shift = c.ordinal() * COST_BITS;
+        return (cost & ~(MAX_COST << shift)) | (n << shift);
+    }
+
+    static long costToLanes(int cost) {
+        long lanes = 0;
+        for (ChipColor c : ChipColor.values()) {
+            lanes |= (long) costOf(cost, c) << (c.ordinal() * LANE_BITS);
+        }
+        return lanes;
+    }
+}
@@ -3,11 +3,13 @@
 
 package domain;
 
-import java.util.EnumMap;
-
 public class Player {
     private int victoryPoints;
-    private final EnumMap<ChipColor, Integer> chips = new EnumMap<>(ChipColor.class);
+    private long chips; // PackedChips lanes
+
+    // Board keeps affordability masks per seat and is told about every change
+    private Board board;
+    private int seat;
 
     public Player() {
         reset();
@@ -15,38 +17,64 @@ public class Player {
 
     public void reset() {
         victoryPoints = 0;
-        for (ChipColor c : ChipColor.values()) chips.put(c, 0);
+        chips = 0;
+        chipsChanged(false);
     }
 
     public int getVictoryPoints() { return victoryPoints; }
-    public int getChips(ChipColor c) { return chips.getOrDefault(c, 0); }
+    public int getChips(ChipColor c) { return PackedChips.get(chips, c); }
+
+    long getPackedChips() { return chips; }
+
+    void attach(Board board, int seat) {
+        this.board = board;
+        this.seat = seat;
+    }
 
     public void addChip(ChipColor c, int n) {
-        chips.put(c, getChips(c) + n);
+        chips = PackedChips.add(chips, c, n);
+        chipsChanged(n > 0);
     }
 
     public void spendChip(ChipColor c, int n) {
         int have = getChips(c);
         if (have < n) throw new IllegalMoveException("Not enough chips to spend");
-        chips.put(c, have - n);
+        chips = PackedChips.add(chips, c, -n);
+        chipsChanged(false);
     }
 
     public boolean canAfford(Card card) {
-        for (var e : card.getCost().entrySet()) {
-            if (getChips(e.getKey()) < e.getValue()) return false;
-        }
-        return true;
+        return PackedChips.canAfford(chips, card.getCostLanes());
     }
 
     public void buy(Card card) {
         if (!canAfford(card)) throw new IllegalMoveException("You cannot afford this card.");
-        for (var e : card.getCost().entrySet()) {
-            if (e.getValue() > 0) spendChip(e.getKey(), e.getValue());
-        }
+        chips = PackedChips.spend(chips, card.getCostLanes());
         victoryPoints += card.getVictoryPoints();
+        chipsChanged(false);
     }
     
     public void setVictoryPoints(int vp) {
         this.victoryPoints = vp;
     }
-}
\ No newline at end of file
+
+    // The board masks are copied along with the board, so no notification
+    void copyFrom(Player o) {
+        victoryPoints = o.victoryPoints;
+        chips = o.chips;
+    }
+
+    // Board.restore rescans the masks afterwards, so no notification
+    void restore(int victoryPoints, long chips) {
+        this.victoryPoints = victoryPoints;
+        this.chips = chips;
+    }
+
+    boolean sameStateAs(Player o) {
+        return victoryPoints == o.victoryPoints && chips == o.chips;
+    }
+
+    private void chipsChanged(boolean increased) {
+        if (board != null) board.chipsChanged(seat, increased);
+    }
+}
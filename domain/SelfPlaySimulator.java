@@ -0,0 +1,123 @@
+package domain;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Plays many complete games against itself with Game.newUnsaved(), so no
+// snapshot is ever encoded or written. Games are split into one contiguous
+// range per worker thread; every game gets its own RNG derived from the seed
+// and its index, so the results do not depend on the number of threads.
+public class SelfPlaySimulator {
+
+    public interface Policy {
+        // Returns an index into moves[0..count)
+        int choose(Game g, int[] moves, int count, SplittableRandom rng);
+    }
+
+    public static final Policy RANDOM = (g, moves, count, rng) -> rng.nextInt(count);
+
+    // Buys the most valuable affordable card, otherwise picks a random chip
+    public static final Policy GREEDY = (g, moves, count, rng) -> {
+        int best = -1;
+        int bestVp = -1;
+        int chips = 0;
+        for (int i = 0; i < count; i++) {
+            if (LegalMoves.type(moves[i]) == LegalMoves.BUY_CARD) {
+                int vp = g.getBoard().cardAt(LegalMoves.slot(moves[i])).getVictoryPoints();
+                if (vp > bestVp) {
+                    bestVp = vp;
+                    best = i;
+                }
+            } else {
+                chips++;
+            }
+        }
+        return best >= 0 ? best : rng.nextInt(chips); // chip moves come first
+    };
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final long games;
+    private final int threads;
+    private final long seed;
+    private final Policy policy;
+    private final int maxMovesPerGame;
+
+    public SelfPlaySimulator(long games, int threads, long seed, Policy policy) {
+        this(games, threads, seed, policy, 10_000);
+    }
+
+    public SelfPlaySimulator(long games, int threads, long seed, Policy policy, int maxMovesPerGame) {
+        this.games = games;
+        this.threads = Math.max(1, threads);
+        this.seed = seed;
+        this.policy = policy;
+        this.maxMovesPerGame = maxMovesPerGame;
+    }
+
+    public SimulationStats run() {
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "self-play");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<SimulationStats>> parts = new ArrayList<>();
+            for (int w = 0; w < threads; w++) {
+                long from = games * w / threads;
+                long to = games * (w + 1) / threads;
+                parts.add(pool.submit(() -> playRange(from, to)));
+            }
+
+            SimulationStats total = new SimulationStats();
+            for (Future<SimulationStats> f : parts) total.merge(f.get());
+            return total;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Simulation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Simulation failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private SimulationStats playRange(long from, long to) {
+        SimulationStats stats = new SimulationStats();
+        Game g = Game.newUnsaved();
+        int[] moves = new int[64];
+
+        for (long i = from; i < to; i++) {
+            SplittableRandom rng = new SplittableRandom(seed + i * GOLDEN_GAMMA);
+            g.startNewGame();
+            playOne(g, rng, moves, stats);
+        }
+        return stats;
+    }
+
+    private void playOne(Game g, SplittableRandom rng, int[] moves, SimulationStats stats) {
+        int turns = 1;
+        for (int played = 0; played < maxMovesPerGame; played++) {
+            if (moves.length < LegalMoves.maxMoves(g)) moves = new int[LegalMoves.maxMoves(g)];
+            int count = LegalMoves.generate(g, moves);
+            if (count == 0) {
+                stats.recordGame(turns, g.getPlayer(0).getVictoryPoints(), g.getPlayer(1).getVictoryPoints());
+                return;
+            }
+
+            int move = moves[policy.choose(g, moves, count, rng)];
+            int seat = g.getTurnState().getCurrentPlayerIndex();
+            if (LegalMoves.type(move) == LegalMoves.BUY_CARD) {
+                stats.recordPurchase(g.getBoard().cardAt(LegalMoves.slot(move)).getId());
+            }
+            LegalMoves.apply(g, move);
+            if (g.getTurnState().getCurrentPlayerIndex() != seat) turns++;
+        }
+        stats.recordAborted();
+    }
+}
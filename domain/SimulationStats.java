@@ -0,0 +1,106 @@
+package domain;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+// Aggregate results of many self-play games. Each worker fills its own
+// instance and the runner merges them, so recording needs no locking.
+public class SimulationStats {
+    static final int MAX_TURNS = 1024; // longer games land in the last bucket
+    static final int MAX_VP = 128;
+
+    private long games;
+    private long player1Wins;
+    private long player2Wins;
+    private long ties;
+    private long aborted;
+    private final long[] turnHistogram = new long[MAX_TURNS];
+    private final long[] vpHistogram = new long[MAX_VP];
+    private final Map<String, long[]> purchases = new TreeMap<>();
+
+    void recordPurchase(String cardId) {
+        purchases.computeIfAbsent(cardId, k -> new long[1])[0]++;
+    }
+
+    void recordAborted() {
+        aborted++;
+    }
+
+    void recordGame(int turns, int player1Vp, int player2Vp) {
+        games++;
+        if (player1Vp > player2Vp) player1Wins++;
+        else if (player2Vp > player1Vp) player2Wins++;
+        else ties++;
+        turnHistogram[Math.min(turns, MAX_TURNS - 1)]++;
+        vpHistogram[Math.min(player1Vp, MAX_VP - 1)]++;
+        vpHistogram[Math.min(player2Vp, MAX_VP - 1)]++;
+    }
+
+    void merge(SimulationStats o) {
+        games += o.games;
+        player1Wins += o.player1Wins;
+        player2Wins += o.player2Wins;
+        ties += o.ties;
+        aborted += o.aborted;
+        for (int i = 0; i < MAX_TURNS; i++) turnHistogram[i] += o.turnHistogram[i];
+        for (int i = 0; i < MAX_VP; i++) vpHistogram[i] += o.vpHistogram[i];
+        for (var e : o.purchases.entrySet()) {
+            purchases.computeIfAbsent(e.getKey(), k -> new long[1])[0] += e.getValue()[0];
+        }
+    }
+
+    public long getGames() { return games; }
+    public long getPlayer1Wins() { return player1Wins; }
+    public long getPlayer2Wins() { return player2Wins; }
+    public long getTies() { return ties; }
+    public long getAborted() { return aborted; }
+
+    public double getFirstPlayerWinRate() {
+        return games == 0 ? 0 : (double) player1Wins / games;
+    }
+
+    // Index = number of turns (last bucket: MAX_TURNS - 1 or more)
+    public long[] getTurnHistogram() { return turnHistogram.clone(); }
+
+    // Index = final VP of a player; two entries per game
+    public long[] getVpHistogram() { return vpHistogram.clone(); }
+
+    public long getPurchases(String cardId) {
+        long[] n = purchases.get(cardId);
+        return n == null ? 0 : n[0];
+    }
+
+    public String format() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Games: ").append(games).append(" (aborted ").append(aborted).append(")\n");
+        sb.append(String.format("P1 wins: %d (%.2f%%)  P2 wins: %d  Ties: %d%n",
+                player1Wins, 100 * getFirstPlayerWinRate(), player2Wins, ties));
+        sb.append(String.format("Turns: mean %.2f  median %d%n", mean(turnHistogram), median(turnHistogram)));
+        sb.append(String.format("Final VP: mean %.2f  median %d%n", mean(vpHistogram), median(vpHistogram)));
+        sb.append("Purchases:\n");
+        for (var e : purchases.entrySet()) {
+            sb.append("  ").append(e.getKey()).append(": ").append(e.getValue()[0]).append("\n");
+        }
+        return sb.toString();
+    }
+
+    private static double mean(long[] hist) {
+        long n = 0, sum = 0;
+        for (int i = 0; i < hist.length; i++) {
+            n += hist[i];
+            sum += hist[i] * i;
+        }
+        return n == 0 ? 0 : (double) sum / n;
+    }
+
+    private static int median(long[] hist) {
+        long n = 0;
+        for (long h : hist) n += h;
+        long seen = 0;
+        for (int i = 0; i < hist.length; i++) {
+            seen += hist[i];
+            if (seen * 2 >= n && n > 0) return i;
+        }
+        return 0;
+    }
+}
@@ -3,8 +3,26 @@
 
 package domain;
 
+import java.nio.ByteBuffer;
+
 public interface SnapshotStore {
     void saveSnapshot(String snapshot);
     String loadSnapshotOrNull();
     void clear();
-}
\ No newline at end of file
+
+    // Blocks until every earlier save/clear has reached the underlying store.
+    default void awaitPersisted() { }
+
+    // Finishes pending saves and releases files; the store is not used afterwards.
+    default void close() { }
+
+    // Stores that return true are handed the unencoded binary snapshot from
+    // GameSnapshotCodec.encodeToBuffer instead of a String. The buffer is
+    // reused by the caller, so it must be written out before returning.
+    // loadSnapshotOrNull then returns the bytes one char per byte (ISO-8859-1).
+    default boolean acceptsEncodedBuffer() { return false; }
+
+    default void saveSnapshot(ByteBuffer snapshot) {
+        throw new UnsupportedOperationException("This store only saves String snapshots");
+    }
+}
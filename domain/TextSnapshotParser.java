@@ -0,0 +1,273 @@
+package domain;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Single pass over a text snapshot (format in GameSnapshotCodec). Numbers are
+// read digit by digit where they stand and catalog cards are matched in place,
+// so apart from the card list and any card not in the catalog nothing is
+// allocated. Errors name the line and column.
+//
+// Like the old split-based parser it accepts the sections in any order, skips
+// unknown sections and fields, and skips board entries without three fields.
+final class TextSnapshotParser {
+    private final CharSequence in;
+    private final CardCatalog catalog;
+    private int pos;
+    private int line = 1;
+    private int lineStart;
+
+    private final long[] chips = new long[2];
+    private final int[] vp = new int[2];
+    private int turn;
+    private long seq;
+    private List<Card> cards; // null if there is no BOARD section
+
+    TextSnapshotParser(CharSequence in, CardCatalog catalog) {
+        this.in = in;
+        this.catalog = catalog;
+    }
+
+    void parseInto(Game g) {
+        while (pos < in.length()) {
+            if (peek() == '\n') {
+                nextLine();
+                continue;
+            }
+            if (peek() == '\r') {
+                pos++;
+                continue;
+            }
+            if (skipPrefix("P0:")) player(0);
+            else if (skipPrefix("P1:")) player(1);
+            else if (skipPrefix("TURN:")) turn();
+            else if (skipPrefix("BOARD:")) board();
+            else if (skipPrefix("SEQ:")) seq = longNumber();
+            else skipToEol();
+        }
+
+        for (int i = 0; i < 2; i++) g.getPlayer(i).restore(vp[i], chips[i]);
+        g.getTurnState().restorePacked(turn);
+        g.restoreSeq(seq);
+        // Players were restored without notifications, so the board rescans
+        if (cards != null) GameSnapshotCodec.restoreBoard(g, cards);
+        else g.getBoard().rescanAffordable();
+    }
+
+    // ---------- Sections ----------
+
+    // chips=R0,B1,G0,K2,W0;vp=3
+    private void player(int seat) {
+        chips[seat] = 0;
+        vp[seat] = 0;
+        while (!atEol()) {
+            skipSpaces();
+            if (skipPrefix("chips=")) {
+                while (!atFieldEnd()) {
+                    if (peek() == ',') {
+                        pos++;
+                        continue;
+                    }
+                    ChipColor c = color();
+                    int start = pos;
+                    int n = number();
+                    if (PackedChips.get(chips[seat], c) + (long) n > PackedChips.MAX_CHIPS) {
+                        throw error(start, "chip count out of range");
+                    }
+                    chips[seat] = PackedChips.add(chips[seat], c, n);
+                }
+            } else if (skipPrefix("vp=")) {
+                vp[seat] = number();
+            }
+            endField();
+        }
+    }
+
+    // current=0;choseChipAction=true;chipsTaken=R,B
+    private void turn() {
+        int current = 0;
+        boolean chose = false;
+        int taken = 0;
+        int colors = 0;
+        while (!atEol()) {
+            skipSpaces();
+            if (skipPrefix("current=")) {
+                int start = pos;
+                current = number();
+                if (current > 1) throw error(start, "seat must be 0 or 1");
+            } else if (skipPrefix("choseChipAction=")) {
+                chose = skipPrefix("true"); // anything else reads as false, like Boolean.parseBoolean
+            } else if (skipPrefix("chipsTaken=")) {
+                while (!atFieldEnd()) {
+                    char ch = peek();
+                    if (ch == ',' || ch == ' ') {
+                        pos++;
+                        continue;
+                    }
+                    if (taken == 3) throw error(pos, "more than 3 chips taken");
+                    colors |= color().ordinal() << (GameState.COLOR_SHIFT + 3 * taken);
+                    taken++;
+                    while (!atFieldEnd() && peek() != ',') pos++; // rest of the token
+                }
+            }
+            endField();
+        }
+        turn = current | (chose ? GameState.CHOSE_CHIPS : 0) | taken << GameState.COUNT_SHIFT | colors;
+    }
+
+    // C1|1|B2K2;C2|2|R3
+    private void board() {
+        cards = new ArrayList<>(16);
+        while (!atEol()) {
+            int idStart = pos;
+            if (fieldsInEntry() != 3) {
+                endField();
+                continue;
+            }
+            while (peek() != '|') pos++;
+            int idEnd = pos++;
+            int cardVp = number();
+            if (peek() != '|') throw error(pos, "expected '|'");
+            pos++;
+            int cost = cost();
+            endField();
+            cards.add(card(idStart, idEnd, cardVp, cost));
+        }
+    }
+
+    private int fieldsInEntry() {
+        int fields = 1;
+        for (int i = pos; i < in.length(); i++) {
+            char ch = in.charAt(i);
+            if (ch == ';' || ch == '\n' || ch == '\r') break;
+            if (ch == '|') fields++;
+        }
+        return fields;
+    }
+
+    // FREE in any case, or color letters each followed by a count, e.g. R3B2
+    private int cost() {
+        if (skipPrefixIgnoreCase("FREE")) return 0;
+        int cost = 0;
+        while (!atFieldEnd()) {
+            ChipColor c = color();
+            int start = pos;
+            int n = number();
+            if (n > PackedChips.MAX_COST) throw error(start, "card cost out of range");
+            cost = PackedChips.withCost(cost, c, n);
+        }
+        return cost;
+    }
+
+    // The catalog card if id, VP and cost all match, else a new card
+    private Card card(int idStart, int idEnd, int cardVp, int cost) {
+        Card c = catalog.find(in, idStart, idEnd);
+        if (c != null && c.getVictoryPoints() == cardVp && c.getPackedCost() == cost) return c;
+        return new Card(in.subSequence(idStart, idEnd).toString(), cardVp, cost);
+    }
+
+    // ---------- Tokens ----------
+
+    private int number() {
+        int start = pos;
+        long v = 0;
+        while (pos < in.length()) {
+            char ch = in.charAt(pos);
+            if (ch < '0' || ch > '9') break;
+            v = v * 10 + (ch - '0');
+            if (v > Integer.MAX_VALUE) throw error(start, "number too large");
+            pos++;
+        }
+        if (pos == start) throw error(start, "expected a number");
+        return (int) v;
+    }
+
+    private long longNumber() {
+        int start = pos;
+        long v = 0;
+        while (pos < in.length()) {
+            char ch = in.charAt(pos);
+            if (ch < '0' || ch > '9') break;
+            if (v > (Long.MAX_VALUE - (ch - '0')) / 10) throw error(start, "number too large");
+            v = v * 10 + (ch - '0');
+            pos++;
+        }
+        if (pos == start) throw error(start, "expected a number");
+        return v;
+    }
+
+    private ChipColor color() {
+        if (pos >= in.length()) throw error(pos, "expected a color");
+        char ch = in.charAt(pos);
+        ChipColor c = switch (Character.toUpperCase(ch)) {
+            case 'R' -> ChipColor.RED;
+            case 'B' -> ChipColor.BLUE;
+            case 'G' -> ChipColor.GREEN;
+            case 'K' -> ChipColor.BLACK;
+            case 'W' -> ChipColor.WHITE;
+            default -> throw error(pos, "bad color '" + ch + "'");
+        };
+        pos++;
+        return c;
+    }
+
+    private boolean skipPrefix(String prefix) {
+        if (!regionEquals(pos, prefix)) return false;
+        pos += prefix.length();
+        return true;
+    }
+
+    private boolean skipPrefixIgnoreCase(String prefix) {
+        if (pos + prefix.length() > in.length()) return false;
+        for (int i = 0; i < prefix.length(); i++) {
+            if (Character.toUpperCase(in.charAt(pos + i)) != prefix.charAt(i)) return false;
+        }
+        pos += prefix.length();
+        return true;
+    }
+
+    private boolean regionEquals(int at, String s) {
+        if (at + s.length() > in.length()) return false;
+        for (int i = 0; i < s.length(); i++) {
+            if (in.charAt(at + i) != s.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private char peek() {
+        return in.charAt(pos);
+    }
+
+    private boolean atEol() {
+        return pos >= in.length() || in.charAt(pos) == '\n' || in.charAt(pos) == '\r';
+    }
+
+    private boolean atFieldEnd() {
+        return atEol() || in.charAt(pos) == ';';
+    }
+
+    private void skipSpaces() {
+        while (!atEol() && Character.isWhitespace(in.charAt(pos))) pos++;
+    }
+
+    // Skips whatever is left of a field (unknown keys, trailing spaces) and its ';'
+    private void endField() {
+        while (!atFieldEnd()) pos++;
+        if (!atEol()) pos++;
+    }
+
+    private void skipToEol() {
+        while (!atEol()) pos++;
+    }
+
+    private void nextLine() {
+        pos++;
+        line++;
+        lineStart = pos;
+    }
+
+    private IllegalArgumentException error(int at, String what) {
+        return new IllegalArgumentException(
+                "Bad snapshot at line " + line + ", column " + (at - lineStart + 1) + ": " + what);
+    }
+}
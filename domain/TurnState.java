@@ -8,6 +8,7 @@ import java.util.Collections;
 import java.util.List;
 
 public class TurnState {
+    private static final ChipColor[] COLORS = ChipColor.values();
 
     private int currentPlayerIndex = 0;
     private final List<ChipColor> chipsTakenThisTurn = new ArrayList<>();
@@ -45,6 +46,11 @@ public class TurnState {
         return chipsTakenThisTurn.size();
     }
 
+    // Indexed read for hot paths that should not allocate a view
+    public ChipColor chipTaken(int i) {
+        return chipsTakenThisTurn.get(i);
+    }
+
     public boolean hasTakenColor(ChipColor c) {
         return chipsTakenThisTurn.contains(c);
     }
@@ -61,6 +67,36 @@ public class TurnState {
     }
 
     // ---------- SAVE / RESTORE SUPPORT ----------
+    void copyFrom(TurnState o) {
+        restore(o.currentPlayerIndex, o.choseChipAction, o.chipsTakenThisTurn);
+    }
+
+    // See GameState for the layout
+    int packed() {
+        int p = currentPlayerIndex | (choseChipAction ? GameState.CHOSE_CHIPS : 0)
+                | chipsTakenThisTurn.size() << GameState.COUNT_SHIFT;
+        for (int i = 0; i < chipsTakenThisTurn.size(); i++) {
+            p |= chipsTakenThisTurn.get(i).ordinal() << (GameState.COLOR_SHIFT + 3 * i);
+        }
+        return p;
+    }
+
+    void restorePacked(int p) {
+        currentPlayerIndex = p & 1;
+        choseChipAction = (p & GameState.CHOSE_CHIPS) != 0;
+        chipsTakenThisTurn.clear();
+        int n = (p >>> GameState.COUNT_SHIFT) & 3;
+        for (int i = 0; i < n; i++) {
+            chipsTakenThisTurn.add(COLORS[(p >>> (GameState.COLOR_SHIFT + 3 * i)) & 7]);
+        }
+    }
+
+    boolean sameStateAs(TurnState o) {
+        return currentPlayerIndex == o.currentPlayerIndex
+                && choseChipAction == o.choseChipAction
+                && chipsTakenThisTurn.equals(o.chipsTakenThisTurn);
+    }
+
     public void restore(int currentPlayerIndex,
                         boolean choseChipAction,
                         List<ChipColor> chipsTaken) {
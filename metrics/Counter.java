@@ -0,0 +1,14 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Lock-free counter; LongAdder spreads contended increments over cells.
+public final class Counter {
+    private final LongAdder value = new LongAdder();
+
+    Counter() { }
+
+    public void increment() { value.increment(); }
+    public void add(long n) { value.add(n); }
+    public long get() { return value.sum(); }
+}
@@ -0,0 +1,78 @@
+package metrics;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+// Process-wide metrics registry.
+//
+// Look a metric up once (typically into a static final field) and record on
+// it from the hot path; lookups are for setup, recording is lock-free.
+public final class Metrics {
+    private static final Map<String, Counter> counters = new ConcurrentSkipListMap<>();
+    private static final Map<String, LatencyHistogram> histograms = new ConcurrentSkipListMap<>();
+
+    private static ScheduledExecutorService dumper;
+
+    private Metrics() { }
+
+    public static Counter counter(String name) {
+        return counters.computeIfAbsent(name, k -> new Counter());
+    }
+
+    public static LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, k -> new LatencyHistogram());
+    }
+
+    static Counter findCounter(String name) { return counters.get(name); }
+    static LatencyHistogram findHistogram(String name) { return histograms.get(name); }
+
+    static String[] names() {
+        String[] out = new String[counters.size() + histograms.size()];
+        int i = 0;
+        for (String n : counters.keySet()) if (i < out.length) out[i++] = n;
+        for (String n : histograms.keySet()) if (i < out.length) out[i++] = n;
+        return out;
+    }
+
+    public static String dump() {
+        StringBuilder sb = new StringBuilder();
+        for (var e : counters.entrySet()) {
+            sb.append(e.getKey()).append(' ').append(e.getValue().get()).append('\n');
+        }
+        for (var e : histograms.entrySet()) {
+            LatencyHistogram h = e.getValue();
+            sb.append(String.format("%s count=%d mean=%.1fus p50=%.1fus p99=%.1fus max=%.1fus%n",
+                    e.getKey(), h.getCount(), h.getMeanNanos() / 1000.0,
+                    h.percentileNanos(50) / 1000.0, h.percentileNanos(99) / 1000.0,
+                    h.getMaxNanos() / 1000.0));
+        }
+        return sb.toString();
+    }
+
+    public static void registerMBean() {
+        try {
+            ObjectName name = new ObjectName("minisplendor:type=Metrics");
+            var server = ManagementFactory.getPlatformMBeanServer();
+            if (!server.isRegistered(name)) server.registerMBean(new MetricsReporter(), name);
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to register metrics MBean", e);
+        }
+    }
+
+    public static synchronized void startPeriodicDump(long intervalMillis, PrintStream out) {
+        if (dumper != null || intervalMillis <= 0) return;
+        dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-dump");
+            t.setDaemon(true);
+            return t;
+        });
+        dumper.scheduleAtFixedRate(() -> out.print(dump()), intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+}
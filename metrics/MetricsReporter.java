@@ -0,0 +1,37 @@
+package metrics;
+
+public class MetricsReporter implements MetricsReporterMBean {
+    @Override
+    public String getReport() {
+        return Metrics.dump();
+    }
+
+    @Override
+    public String[] getNames() {
+        return Metrics.names();
+    }
+
+    @Override
+    public long getCounter(String name) {
+        Counter c = Metrics.findCounter(name);
+        return c == null ? 0 : c.get();
+    }
+
+    @Override
+    public long getCount(String histogram) {
+        LatencyHistogram h = Metrics.findHistogram(histogram);
+        return h == null ? 0 : h.getCount();
+    }
+
+    @Override
+    public double getMeanMicros(String histogram) {
+        LatencyHistogram h = Metrics.findHistogram(histogram);
+        return h == null ? 0 : h.getMeanNanos() / 1000.0;
+    }
+
+    @Override
+    public double getPercentileMicros(String histogram, double percentile) {
+        LatencyHistogram h = Metrics.findHistogram(histogram);
+        return h == null ? 0 : h.percentileNanos(percentile) / 1000.0;
+    }
+}
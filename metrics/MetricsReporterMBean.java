@@ -0,0 +1,11 @@
+package metrics;
+
+// JMX view of the registry, registered as minisplendor:type=Metrics
+public interface MetricsReporterMBean {
+    String getReport();
+    String[] getNames();
+    long getCounter(String name);
+    long getCount(String histogram);
+    double getMeanMicros(String histogram);
+    double getPercentileMicros(String histogram, double percentile);
+}
@@ -8,25 +8,64 @@ import java.awt.*;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class SplendorFrame extends JFrame {
     private final Game game;
     private boolean winDialogShown = false;
 
+    // Optional computer opponent playing one seat
+    private final MctsPlayer ai;
+    private final int aiSeat;
+    private final long aiMillis;
+    private boolean aiThinking = false;
+
     private final JLabel currentPlayerLabel = new JLabel();
     private final JLabel p1Label = new JLabel();
     private final JLabel p2Label = new JLabel();
     private final JLabel errorLabel = new JLabel();
-    private final JTextArea leaderboardArea = new JTextArea(6, 18);
-
-    private final JPanel cardsPanel = new JPanel(new GridLayout(3, 5, 8, 8));
+    private final HistoryListModel historyModel;
+    private final JList<String> historyList;
+    private final JLabel statsLabel = new JLabel();
+
+    private static final int VISIBLE_CARD_ROWS = 3;
+    private final JPanel cardsPanel = new JPanel(new GridLayout(0, 5, 8, 8));
+    private final JScrollPane cardsScroll = new JScrollPane(cardsPanel,
+            ScrollPaneConstants.VERTICAL_SCROLLBAR_AS_NEEDED, ScrollPaneConstants.HORIZONTAL_SCROLLBAR_NEVER);
+
+    // One button per board slot, re-bound only when the card in its slot
+    // changes; a bought card's button is hidden so the grid keeps its shape.
+    private JButton[] cardButtons = new JButton[0];
+    private Card[] boundCards = new Card[0];
+    private final Map<Card, String> cardLabels = new HashMap<>();
+
+    // Game events only mark what changed; refresh() then repaints it on the
+    // EDT from the published GameState, so moves could run on any thread.
+    private static final int DIRTY_P1 = 1;
+    private static final int DIRTY_P2 = 1 << 1;
+    private static final int DIRTY_CARDS = 1 << 2;
+    private static final int DIRTY_TURN = 1 << 3;
+    private static final int DIRTY_LEADERBOARD = 1 << 4;
+    private static final int DIRTY_ALL = (1 << 5) - 1;
+    private final AtomicInteger dirty = new AtomicInteger();
     private static final DateTimeFormatter LEADERBOARD_TIME =
             DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
 
     public SplendorFrame(Game game) {
+        this(game, null, -1, 0);
+    }
+
+    public SplendorFrame(Game game, MctsPlayer ai, int aiSeat, long aiMillis) {
         super("Mini-Splendor");
         this.game = game;
+        this.ai = ai;
+        this.aiSeat = aiSeat;
+        this.aiMillis = aiMillis;
+        this.historyModel = new HistoryListModel();
+        this.historyList = new JList<>(historyModel);
 
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setLayout(new BorderLayout(10, 10));
@@ -35,19 +74,54 @@ public class SplendorFrame extends JFrame {
         add(buildCenter(), BorderLayout.CENTER);
         add(buildBottom(), BorderLayout.SOUTH);
 
+        game.enablePublishing();
+        game.addListener(new GameListener() {
+            @Override
+            public void chipsChanged(int seat) {
+                markDirty(seat == 0 ? DIRTY_P1 : DIRTY_P2);
+            }
+
+            @Override
+            public void cardRemoved(int slot) {
+                markDirty(DIRTY_CARDS);
+            }
+
+            @Override
+            public void turnChanged(int currentSeat) {
+                markDirty(DIRTY_TURN);
+            }
+
+            @Override
+            public void leaderboardUpdated() {
+                markDirty(DIRTY_LEADERBOARD);
+            }
+
+            @Override
+            public void boardReset() {
+                markDirty(DIRTY_ALL);
+            }
+        });
+
         redraw();
         pack();
         setLocationRelativeTo(null);
         setVisible(true);
+        playAiIfItsTurn();
     }
 
     private JPanel buildTopBar() {
         JPanel top = new JPanel(new FlowLayout(FlowLayout.CENTER, 12, 8));
         JButton newGame = new JButton("New Game");
         newGame.addActionListener(e -> onNewGame());
+        JButton undo = new JButton("Undo");
+        undo.addActionListener(e -> onUndo(true));
+        JButton redo = new JButton("Redo");
+        redo.addActionListener(e -> onUndo(false));
 
         top.add(currentPlayerLabel);
         top.add(newGame);
+        top.add(undo);
+        top.add(redo);
         return top;
     }
 
@@ -56,7 +130,8 @@ public class SplendorFrame extends JFrame {
 
         JPanel left = new JPanel(new BorderLayout(8, 8));
         left.setBorder(BorderFactory.createTitledBorder("Cards to Buy"));
-        left.add(cardsPanel, BorderLayout.CENTER);
+        cardsScroll.setBorder(null);
+        left.add(cardsScroll, BorderLayout.CENTER);
 
         JPanel right = new JPanel(new GridLayout(3, 1, 8, 8));
         right.setBorder(BorderFactory.createTitledBorder("Players & Leaderboard"));
@@ -78,14 +153,16 @@ public class SplendorFrame extends JFrame {
 
     private JComponent buildLeaderboardPanel() {
         JPanel p = new JPanel(new BorderLayout());
-        p.setBorder(BorderFactory.createTitledBorder("Leaderboard (Last 4)"));
+        p.setBorder(BorderFactory.createTitledBorder("Leaderboard (Newest First)"));
 
-        leaderboardArea.setEditable(false);
-        leaderboardArea.setLineWrap(true);
-        leaderboardArea.setWrapStyleWord(true);
-        leaderboardArea.setPreferredSize(new Dimension(220, 120));
+        // Fixed row height: the list never has to measure every row, so only
+        // the visible ones are ever formatted, however long the history is.
+        historyList.setPrototypeCellValue("0000000. 2000-01-01 00:00  P1 00 - P2 00  (Tie)");
+        historyList.setVisibleRowCount(6);
+        historyList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
 
-        p.add(new JScrollPane(leaderboardArea), BorderLayout.CENTER);
+        p.add(new JScrollPane(historyList), BorderLayout.CENTER);
+        p.add(statsLabel, BorderLayout.SOUTH);
         return p;
     }
 
@@ -110,61 +187,159 @@ public class SplendorFrame extends JFrame {
     }
 
     private void onChipClicked(ChipColor color) {
-        try {
-            game.takeChip(color);
-        } catch (IllegalMoveException ex) {
-            // Domain decides legality; UI just shows the message.  [oai_citation:8‡374 Homework 2 - minisplendor-Steve (2).pdf](sediment://file_000000007540722f9e8bbcb3aca3178b)
-        }
-        redraw();
+        if (aiThinking) return;
+        // Domain decides legality; UI just shows the message.  [oai_citation:8‡374 Homework 2 - minisplendor-Steve (2).pdf](sediment://file_000000007540722f9e8bbcb3aca3178b)
+        if (game.tryTakeChip(color).isOk() && ai != null) ai.observe(LegalMoves.takeChip(color));
+        afterMove();
     }
 
-    private void onCardClicked(String cardId) {
-        try {
-            game.buyCard(cardId);
-        } catch (IllegalMoveException ex) {
-        }
-        redraw();
+    private void onCardClicked(int slot) {
+        if (aiThinking) return;
+        Card card = game.getPublishedState().cardAt(slot);
+        if (card == null) return;
+        if (game.tryBuyCard(card.getId()).isOk() && ai != null) ai.observe(LegalMoves.buyCard(slot));
+        afterMove();
     }
 
     private void onNewGame() {
-        game.startNewGame();
+        if (aiThinking) return;
         winDialogShown = false;
-        redraw();
+        game.startNewGame(); // boardReset redraws everything
+        if (ai != null) ai.reset();
+        playAiIfItsTurn();
     }
 
-    public void redraw() {
-        currentPlayerLabel.setText("Current Player: " + game.getCurrentPlayerNumber());
-
-        p1Label.setText(playerText(0));
-        p2Label.setText(playerText(1));
-
-        // Cards
-        cardsPanel.removeAll();
-        List<Card> cards = game.getBoard().getAvailable();
-        for (Card c : cards) {
-            JButton cardButton = new JButton("<html><center>VP: " + c.getVictoryPoints()
-                    + "<br/>" + c.costString() + "</center></html>");
-            cardButton.addActionListener(e -> onCardClicked(c.getId()));
-            cardsPanel.add(cardButton);
+    // Against the computer, also steps over its moves so it is your turn again
+    private void onUndo(boolean back) {
+        if (aiThinking) return;
+        boolean moved = false;
+        while (back ? game.undo() : game.redo()) { // boardReset redraws everything
+            moved = true;
+            if (ai == null || game.getPublishedState().getCurrentPlayerIndex() != aiSeat) break;
         }
+        if (!moved) return;
+        if (ai != null) ai.reset();
+        if (!game.getPublishedState().isGameOver()) winDialogShown = false;
+        afterMove();
+    }
 
-        // Fill remaining slots to keep grid stable
-        for (int i = cards.size(); i < 15; i++) {
-            cardsPanel.add(new JLabel(""));
-        }
+    private void afterMove() {
+        refresh(); // now, so a win dialog shows the final position
+        errorLabel.setText(game.getLastError());
+        showWinDialogIfNeeded();
+        playAiIfItsTurn();
+    }
 
+    // Searches on a copy of the position off the EDT, then plays the move
+    // here and keeps going until the computer's turn is over.
+    private void playAiIfItsTurn() {
+        if (ai == null || aiThinking || game.getPublishedState().isGameOver()) return;
+        if (game.getPublishedState().getCurrentPlayerIndex() != aiSeat) return;
+
+        aiThinking = true;
+        Game position = game.copyUnsaved();
+        new SwingWorker<Integer, Void>() {
+            @Override
+            protected Integer doInBackground() {
+                return ai.chooseMove(position, aiMillis);
+            }
+
+            @Override
+            protected void done() {
+                aiThinking = false;
+                try {
+                    int move = get();
+                    if (move >= 0 && LegalMoves.apply(game, move).isOk()) ai.observe(move);
+                } catch (Exception ex) {
+                    // Don't search again: a failure would just repeat
+                    Throwable cause = ex instanceof ExecutionException && ex.getCause() != null ? ex.getCause() : ex;
+                    refresh();
+                    errorLabel.setText("Computer player failed: " + cause);
+                    return;
+                }
+                afterMove();
+            }
+        }.execute();
+    }
+
+    // Full refresh, for the first paint and for a new or replaced position
+    public void redraw() {
+        dirty.getAndAccumulate(DIRTY_ALL, (a, b) -> a | b);
+        refresh();
         errorLabel.setText(game.getLastError());
-        leaderboardArea.setText(leaderboardText());
         showWinDialogIfNeeded();
+    }
+
+    // Safe from any thread; coalesces into one refresh per EDT turn
+    private void markDirty(int bits) {
+        if (dirty.getAndAccumulate(bits, (a, b) -> a | b) == 0) {
+            SwingUtilities.invokeLater(this::refresh);
+        }
+    }
+
+    private void refresh() {
+        int bits = dirty.getAndSet(0);
+        if (bits == 0) return;
+        GameState s = game.getPublishedState();
+
+        if ((bits & DIRTY_TURN) != 0) {
+            currentPlayerLabel.setText("Current Player: " + (s.getCurrentPlayerIndex() + 1));
+        }
+        if ((bits & DIRTY_P1) != 0) p1Label.setText(playerText(s, 0));
+        if ((bits & DIRTY_P2) != 0) p2Label.setText(playerText(s, 1));
+        if ((bits & DIRTY_CARDS) != 0) refreshCards(s);
+        if ((bits & DIRTY_LEADERBOARD) != 0) {
+            historyModel.refresh();
+            statsLabel.setText(statsText());
+        }
+    }
+
+    private void refreshCards(GameState s) {
+        // Keep at least the 3x5 grid so the layout is stable
+        int slots = Math.max(s.slotCount(), 15);
+        boolean rebuilt = cardButtons.length != slots;
+        if (rebuilt) {
+            cardsPanel.removeAll();
+            cardButtons = new JButton[slots];
+            boundCards = new Card[slots];
+            for (int i = 0; i < slots; i++) {
+                int slot = i;
+                cardButtons[i] = new JButton();
+                cardButtons[i].setVisible(false);
+                cardButtons[i].addActionListener(e -> onCardClicked(slot));
+                cardsPanel.add(cardButtons[i]);
+            }
+            revalidate();
+        }
+        for (int i = 0; i < slots; i++) {
+            Card c = i < s.slotCount() ? s.cardAt(i) : null;
+            if (c == boundCards[i]) continue;
+            boundCards[i] = c;
+            cardButtons[i].setVisible(c != null);
+            if (c != null) cardButtons[i].setText(cardLabels.computeIfAbsent(c, SplendorFrame::cardText));
+        }
+        if (rebuilt) sizeCardsViewport(slots);
+    }
 
-        revalidate();
-        repaint();
+    // Large decks scroll; the viewport stays as high as the 3x5 grid
+    private void sizeCardsViewport(int slots) {
+        Dimension d = cardsPanel.getPreferredSize();
+        int rows = (slots + 4) / 5;
+        if (rows > VISIBLE_CARD_ROWS) d.height = d.height * VISIBLE_CARD_ROWS / rows;
+        cardsScroll.getViewport().setPreferredSize(d);
+        cardsScroll.getVerticalScrollBar().setUnitIncrement(Math.max(1, d.height / VISIBLE_CARD_ROWS / 4));
+    }
+
+    private static String cardText(Card c) {
+        return "<html><center>VP: " + c.getVictoryPoints()
+                + "<br/>" + c.costString() + "</center></html>";
     }
 
     private void showWinDialogIfNeeded() {
-        if (!game.isGameOver() || winDialogShown) return;
+        GameState s = game.getPublishedState();
+        if (!s.isGameOver() || winDialogShown) return;
 
-        int winner = game.getWinnerPlayerNumber();
+        int winner = s.getWinnerPlayerNumber();
         String message;
         if (winner == 1) {
             message = "Player 1 wins!";
@@ -177,15 +352,15 @@ public class SplendorFrame extends JFrame {
         winDialogShown = true;
         JOptionPane.showMessageDialog(
                 this,
-                message + " Final score: P1 " + game.getPlayer(0).getVictoryPoints()
-                        + " - P2 " + game.getPlayer(1).getVictoryPoints(),
+                message + " Final score: P1 " + s.getPlayer(0).getVictoryPoints()
+                        + " - P2 " + s.getPlayer(1).getVictoryPoints(),
                 "Game Over",
                 JOptionPane.INFORMATION_MESSAGE
         );
     }
 
-    private String playerText(int idx) {
-        Player p = game.getPlayer(idx);
+    private String playerText(GameState s, int idx) {
+        GameState.PlayerState p = s.getPlayer(idx);
         StringBuilder sb = new StringBuilder("<html>");
         sb.append("Chips: ");
         for (ChipColor c : ChipColor.values()) {
@@ -196,32 +371,58 @@ public class SplendorFrame extends JFrame {
         return sb.toString();
     }
 
-    private String leaderboardText() {
-        List<Leaderboard.Entry> entries = game.getLeaderboardEntries();
-        if (entries.isEmpty()) return "No completed games yet.";
+    // Row 0 is the newest game. Rows are formatted when the list paints them,
+    // never copied out of the history up front.
+    private class HistoryListModel extends AbstractListModel<String> {
+        private static final long serialVersionUID = 1L;
+
+        private int shownSize = getSize();
+
+        @Override
+        public int getSize() {
+            int n = game.getHistory().size();
+            return n == 0 ? 1 : n;
+        }
+
+        @Override
+        public String getElementAt(int row) {
+            GameHistory h = game.getHistory();
+            if (h.isEmpty()) return "No completed games yet.";
 
-        StringBuilder sb = new StringBuilder();
-        int rank = 1;
-        for (Leaderboard.Entry e : entries) {
+            int i = h.size() - 1 - row;
             String when = LEADERBOARD_TIME.format(
-                    Instant.ofEpochMilli(e.getTimestampMillis())
+                    Instant.ofEpochMilli(h.timestampAt(i))
                             .atZone(ZoneId.systemDefault())
                             .toLocalDateTime()
             );
-            String winner = winnerLabel(e.getPlayer1Vp(), e.getPlayer2Vp());
-            sb.append(rank++)
-              .append(". ")
-              .append(when)
-              .append("  P1 ")
-              .append(e.getPlayer1Vp())
-              .append(" - P2 ")
-              .append(e.getPlayer2Vp())
-              .append("  (")
-              .append(winner)
-              .append(")");
-            sb.append("\n");
+            int p1 = h.player1VpAt(i);
+            int p2 = h.player2VpAt(i);
+            return (row + 1) + ". " + when + "  P1 " + p1 + " - P2 " + p2
+                    + "  (" + winnerLabel(p1, p2) + ")";
+        }
+
+        // A new result renumbers every row, so all of them are marked changed;
+        // the list still only formats the visible ones.
+        void refresh() {
+            int size = getSize();
+            if (size > shownSize) fireIntervalAdded(this, shownSize, size - 1);
+            else if (size < shownSize) fireIntervalRemoved(this, size, shownSize - 1);
+            shownSize = size;
+            fireContentsChanged(this, 0, size - 1);
         }
-        return sb.toString().trim();
+    }
+
+    private String statsText() {
+        LeaderboardStats s = game.getLeaderboardStats();
+        if (s.gamesPlayed() == 0) return "";
+        return String.format("<html>Games: %d &nbsp;Ties: %d"
+                        + "<br/>P1: %d W, avg %.1f VP (sd %.1f), best streak %d"
+                        + "<br/>P2: %d W, avg %.1f VP (sd %.1f), best streak %d"
+                        + "<br/>Margin: median %d, 90%% %d</html>",
+                s.gamesPlayed(), s.ties(),
+                s.wins(0), s.meanVp(0), Math.sqrt(s.vpVariance(0)), s.longestWinStreak(0),
+                s.wins(1), s.meanVp(1), Math.sqrt(s.vpVariance(1)), s.longestWinStreak(1),
+                s.marginQuantile(0.5), s.marginQuantile(0.9));
     }
 
     private String winnerLabel(int p1Vp, int p2Vp) {
@@ -0,0 +1,122 @@
+package storage;
+
+import domain.SnapshotStore;
+
+// Moves snapshot writes off the caller's thread (the Swing EDT for the UI).
+// A single writer thread drains a one-slot mailbox: every save or clear
+// replaces whatever is still pending, so only the newest state is written.
+public class AsyncSnapshotStore implements SnapshotStore, AutoCloseable {
+    private final SnapshotStore delegate;
+    private final Thread writer;
+
+    private boolean hasPending = false;
+    private String pendingSnapshot; // null means clear()
+    private long submittedSeq = 0;
+    private long persistedSeq = 0;
+    private RuntimeException lastFailure;
+    private boolean closed = false;
+
+    public AsyncSnapshotStore(SnapshotStore delegate) {
+        this.delegate = delegate;
+        this.writer = new Thread(this::writeLoop, "snapshot-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void saveSnapshot(String snapshot) {
+        submit(snapshot);
+    }
+
+    @Override
+    public void clear() {
+        submit(null);
+    }
+
+    @Override
+    public String loadSnapshotOrNull() {
+        awaitWriter();
+        return delegate.loadSnapshotOrNull();
+    }
+
+    @Override
+    public void awaitPersisted() {
+        awaitWriter();
+        delegate.awaitPersisted();
+    }
+
+    private synchronized void awaitWriter() {
+        long target = submittedSeq;
+        boolean interrupted = false;
+        while (persistedSeq < target && writer.isAlive()) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+
+        if (lastFailure != null) {
+            RuntimeException e = lastFailure;
+            lastFailure = null;
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            notifyAll();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized void submit(String snapshot) {
+        if (closed) throw new IllegalStateException("Snapshot store is closed");
+        pendingSnapshot = snapshot;
+        hasPending = true;
+        submittedSeq++;
+        notifyAll();
+    }
+
+    private void writeLoop() {
+        while (true) {
+            String snapshot;
+            long seq;
+            synchronized (this) {
+                while (!hasPending && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException ignored) {
+                    }
+                }
+                if (!hasPending) return; // closed and drained
+                snapshot = pendingSnapshot;
+                seq = submittedSeq;
+                hasPending = false;
+                pendingSnapshot = null;
+            }
+
+            RuntimeException failure = null;
+            try {
+                if (snapshot == null) delegate.clear();
+                else delegate.saveSnapshot(snapshot);
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+
+            synchronized (this) {
+                persistedSeq = seq;
+                if (failure != null) lastFailure = failure;
+                notifyAll();
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package storage;
+
+import domain.SnapshotStore;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.zip.CRC32;
+
+// SnapshotStore that writes the codec's reusable binary buffer straight to a
+// FileChannel: no String, no Base64, no Properties escaping, and at steady
+// state no allocation per save.
+//
+// Saves alternate between two files so a crash mid-write can only tear the
+// older copy; loading picks the valid copy with the higher sequence number.
+// Each copy is forced to disk before it counts as the newest, so the next
+// save never overwrites the only durable copy.
+//
+// File: sequence (long), kind (byte), payload length (int),
+//       crc32 of everything before it and the payload (int), payload
+public class ChannelSnapshotStore implements SnapshotStore, AutoCloseable {
+    private static final int HEADER_SIZE = 17;
+    private static final int CRC_OFFSET = 13;
+    private static final byte RAW = 0;     // codec binary bytes
+    private static final byte STRING = 1;  // UTF-8 String snapshot
+    private static final byte CLEARED = 2; // no snapshot
+
+    private final FileChannel[] files = new FileChannel[2];
+    private final ByteBuffer header = ByteBuffer.allocateDirect(HEADER_SIZE);
+    private final ByteBuffer[] parts = new ByteBuffer[2];
+    private final CRC32 crc = new CRC32();
+
+    private long seq;   // of the newest valid copy, 0 if none
+    private int newest; // file holding it
+
+    public ChannelSnapshotStore(Path dir) {
+        try {
+            Files.createDirectories(dir);
+            files[0] = FileChannel.open(dir.resolve("snapshot-a.bin"),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            files[1] = FileChannel.open(dir.resolve("snapshot-b.bin"),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            for (int i = 0; i < 2; i++) {
+                long s = validSeq(i);
+                if (s > seq) {
+                    seq = s;
+                    newest = i;
+                }
+            }
+        } catch (IOException e) {
+            close();
+            throw new RuntimeException("Failed to open snapshot files in " + dir, e);
+        }
+    }
+
+    @Override
+    public boolean acceptsEncodedBuffer() {
+        return true;
+    }
+
+    @Override
+    public synchronized void saveSnapshot(ByteBuffer snapshot) {
+        write(RAW, snapshot);
+    }
+
+    @Override
+    public synchronized void saveSnapshot(String snapshot) {
+        write(STRING, ByteBuffer.wrap(snapshot.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Override
+    public synchronized void clear() {
+        write(CLEARED, ByteBuffer.allocate(0));
+    }
+
+    @Override
+    public synchronized String loadSnapshotOrNull() {
+        if (seq == 0) return null;
+        try {
+            ByteBuffer payload = readPayload(newest);
+            if (payload == null) return null;
+            byte kind = header.get(8);
+            if (kind == CLEARED) return null;
+            return new String(payload.array(), 0, payload.limit(),
+                    kind == RAW ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load snapshot", e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        for (FileChannel ch : files) {
+            try {
+                if (ch != null) ch.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    // ---------- Internals ----------
+
+    private void write(byte kind, ByteBuffer payload) {
+        int target = 1 - newest;
+        int start = payload.position();
+        header.clear();
+        header.putLong(seq + 1).put(kind).putInt(payload.remaining()).flip();
+        crc.reset();
+        crc.update(header);
+        crc.update(payload);
+        payload.position(start);
+        header.limit(HEADER_SIZE);
+        header.putInt((int) crc.getValue()).flip();
+        parts[0] = header;
+        parts[1] = payload;
+        long size = HEADER_SIZE + payload.remaining();
+        try {
+            FileChannel ch = files[target];
+            ch.position(0);
+            while (payload.hasRemaining() || header.hasRemaining()) ch.write(parts);
+            ch.truncate(size);
+            ch.force(false);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to save snapshot", e);
+        } finally {
+            parts[1] = null; // the caller reuses its buffer
+        }
+        seq++;
+        newest = target;
+    }
+
+    // Sequence number of the copy in file i, or 0 if it is missing or torn
+    private long validSeq(int i) throws IOException {
+        return readPayload(i) != null ? header.getLong(0) : 0;
+    }
+
+    // Reads file i's header into header and returns its payload if the crc matches
+    private ByteBuffer readPayload(int i) throws IOException {
+        FileChannel ch = files[i];
+        header.clear();
+        if (ch.read(header, 0) < HEADER_SIZE) return null;
+        int length = header.getInt(9);
+        if (length < 0 || length > ch.size() - HEADER_SIZE) return null;
+
+        ByteBuffer payload = ByteBuffer.allocate(length);
+        while (payload.hasRemaining()) {
+            if (ch.read(payload, HEADER_SIZE + payload.position()) < 0) return null;
+        }
+        payload.flip();
+        crc.reset();
+        crc.update(header.position(0).limit(CRC_OFFSET));
+        header.limit(HEADER_SIZE);
+        crc.update(payload.array(), 0, length);
+        return (int) crc.getValue() == header.getInt(CRC_OFFSET) ? payload : null;
+    }
+}
@@ -5,20 +5,27 @@ package storage;
 import domain.LeaderboardStore;
 
 public class DomainLeaderboardStore implements LeaderboardStore {
-    private static final String KEY = "game.leaderboard";
+    private static final String DEFAULT_KEY = "game.leaderboard";
     private final KeyValueStore kv;
+    private final String key;
 
     public DomainLeaderboardStore(KeyValueStore kv) {
+        this(kv, DEFAULT_KEY);
+    }
+
+    // Hosted games each get their own key, e.g. "game.leaderboard.<gameId>"
+    public DomainLeaderboardStore(KeyValueStore kv, String key) {
         this.kv = kv;
+        this.key = key;
     }
 
     @Override
     public void saveLeaderboard(String data) {
-        kv.put(KEY, data);
+        kv.put(key, data);
     }
 
     @Override
     public String loadLeaderboardOrNull() {
-        return kv.getOrNull(KEY);
+        return kv.getOrNull(key);
     }
 }
@@ -5,25 +5,37 @@ package storage;
 import domain.SnapshotStore;
 
 public class DomainSnapshotStore implements SnapshotStore {
-    private static final String KEY = "game.snapshot";
+    private static final String DEFAULT_KEY = "game.snapshot";
     private final KeyValueStore kv;
+    private final String key;
 
     public DomainSnapshotStore(KeyValueStore kv) {
+        this(kv, DEFAULT_KEY);
+    }
+
+    // Hosted games each get their own key, e.g. "game.snapshot.<gameId>"
+    public DomainSnapshotStore(KeyValueStore kv, String key) {
         this.kv = kv;
+        this.key = key;
     }
 
     @Override
     public void saveSnapshot(String snapshot) {
-        kv.put(KEY, snapshot);
+        kv.put(key, snapshot);
     }
 
     @Override
     public String loadSnapshotOrNull() {
-        return kv.getOrNull(KEY);
+        return kv.getOrNull(key);
     }
 
     @Override
     public void clear() {
-        kv.remove(KEY);
+        kv.remove(key);
+    }
+
+    @Override
+    public void awaitPersisted() {
+        kv.flush();
     }
 }
\ No newline at end of file
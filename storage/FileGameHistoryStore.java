@@ -0,0 +1,86 @@
+package storage;
+
+import domain.GameHistory;
+import domain.GameHistoryStore;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+
+// Fixed 16-byte records: timestamp (8), P1 VP (4), P2 VP (4), big-endian.
+// Appending never rewrites earlier results. A crash can only leave a partial
+// last record, which loadInto ignores and the next append overwrites.
+//
+// The file is opened once, on first use, and stays open until close().
+public class FileGameHistoryStore implements GameHistoryStore {
+    static final int RECORD_SIZE = 16;
+    private static final int READ_RECORDS = 4096;
+
+    private final Path filePath;
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+    private FileChannel channel;
+    private long end; // where the next record goes
+
+    public FileGameHistoryStore(Path filePath) {
+        this.filePath = filePath;
+    }
+
+    @Override
+    public synchronized void append(long timestampMillis, int player1Vp, int player2Vp) {
+        try {
+            FileChannel ch = channel();
+            record.clear();
+            record.putLong(timestampMillis).putInt(player1Vp).putInt(player2Vp).flip();
+            while (record.hasRemaining()) ch.write(record, end + record.position());
+            end += RECORD_SIZE;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to append game history", e);
+        }
+    }
+
+    @Override
+    public synchronized void loadInto(GameHistory history) {
+        if (channel == null && !Files.exists(filePath)) return;
+        try {
+            FileChannel ch = channel();
+            ByteBuffer buf = ByteBuffer.allocate(RECORD_SIZE * READ_RECORDS);
+            for (long pos = 0; pos < end; pos += buf.position()) {
+                buf.clear();
+                buf.limit((int) Math.min(buf.capacity(), end - pos));
+                while (buf.hasRemaining()) {
+                    if (ch.read(buf, pos + buf.position()) < 0) throw new IOException("History file shrank");
+                }
+                buf.flip();
+                while (buf.hasRemaining()) history.add(buf.getLong(), buf.getInt(), buf.getInt());
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load game history", e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to close game history", e);
+        } finally {
+            channel = null;
+        }
+    }
+
+    // Opens the file on first use and drops a torn tail, so end is always on
+    // a record boundary
+    private FileChannel channel() throws IOException {
+        if (channel == null) {
+            Files.createDirectories(filePath.getParent());
+            FileChannel ch = FileChannel.open(filePath,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            end = ch.size() - ch.size() % RECORD_SIZE;
+            channel = ch;
+        }
+        return channel;
+    }
+}
@@ -33,7 +33,7 @@ public class FileKeyValueStore implements KeyValueStore {
         saveProps(p);
     }
 
-    private Properties loadProps() {
+    Properties loadProps() {
         Properties p = new Properties();
         if (!Files.exists(filePath)) return p;
         try (InputStream in = Files.newInputStream(filePath)) {
@@ -45,7 +45,7 @@ public class FileKeyValueStore implements KeyValueStore {
         }
     }
 
-    private void saveProps(Properties p) {
+    void saveProps(Properties p) {
         try {
             Files.createDirectories(filePath.getParent());
         } catch (IOException ignored) { }
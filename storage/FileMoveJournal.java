@@ -0,0 +1,72 @@
+package storage;
+
+import domain.MoveJournal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+
+// One record per line. A crash can only leave a partial last line,
+// which Game stops at when replaying (and then checkpoints past it).
+// Every append is forced before it returns, so a move that was
+// acknowledged survives a crash. The file stays open until clear() or close().
+public class FileMoveJournal implements MoveJournal {
+    private final Path filePath;
+    private FileChannel channel;
+
+    public FileMoveJournal(Path filePath) {
+        this.filePath = filePath;
+    }
+
+    @Override
+    public synchronized void append(String record) {
+        try {
+            if (channel == null) {
+                Files.createDirectories(filePath.getParent());
+                channel = FileChannel.open(filePath, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            ByteBuffer buf = ByteBuffer.wrap((record + "\n").getBytes(StandardCharsets.UTF_8));
+            while (buf.hasRemaining()) channel.write(buf);
+            channel.force(false);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to append move", e);
+        }
+    }
+
+    @Override
+    public synchronized List<String> loadRecords() {
+        if (!Files.exists(filePath)) return new ArrayList<>();
+        try {
+            return Files.readAllLines(filePath, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            // Unreadable journal: fall back to the last checkpoint
+            return new ArrayList<>();
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        close();
+        try {
+            Files.deleteIfExists(filePath);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to clear move journal", e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to close move journal", e);
+        } finally {
+            channel = null;
+        }
+    }
+}
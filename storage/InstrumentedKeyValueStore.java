@@ -0,0 +1,67 @@
+package storage;
+
+import metrics.Counter;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
+
+// Records latency for every operation of the wrapped store under kv.<op>,
+// plus the bytes handed to put().
+public class InstrumentedKeyValueStore implements KeyValueStore {
+    private static final LatencyHistogram PUT = Metrics.histogram("kv.put");
+    private static final LatencyHistogram GET = Metrics.histogram("kv.getOrNull");
+    private static final LatencyHistogram REMOVE = Metrics.histogram("kv.remove");
+    private static final LatencyHistogram FLUSH = Metrics.histogram("kv.flush");
+    private static final Counter PUT_BYTES = Metrics.counter("kv.put.bytes");
+
+    private final KeyValueStore delegate;
+
+    public InstrumentedKeyValueStore(KeyValueStore delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void put(String key, String value) {
+        long start = System.nanoTime();
+        try {
+            delegate.put(key, value);
+            PUT_BYTES.add(value.length());
+        } finally {
+            PUT.recordSince(start);
+        }
+    }
+
+    @Override
+    public String getOrNull(String key) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getOrNull(key);
+        } finally {
+            GET.recordSince(start);
+        }
+    }
+
+    @Override
+    public void remove(String key) {
+        long start = System.nanoTime();
+        try {
+            delegate.remove(key);
+        } finally {
+            REMOVE.recordSince(start);
+        }
+    }
+
+    @Override
+    public void flush() {
+        long start = System.nanoTime();
+        try {
+            delegate.flush();
+        } finally {
+            FLUSH.recordSince(start);
+        }
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}
@@ -2,8 +2,16 @@
 
 package storage;
 
-public interface KeyValueStore {
+public interface KeyValueStore extends AutoCloseable {
     void put(String key, String value);
     String getOrNull(String key);
     void remove(String key);
-}
\ No newline at end of file
+
+    // Stores that buffer writes override these; plain stores are always on disk.
+    default void flush() { }
+
+    @Override
+    default void close() {
+        flush();
+    }
+}
@@ -0,0 +1,495 @@
+package storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+// Log-structured KeyValueStore.
+//
+// Every put/remove is appended as a checksummed record to the active segment
+// file (seg-00000001.log, ...) and an in-memory index maps each key to the
+// segment and offset of its latest value. Writers that arrive while an fsync
+// is running wait for the next one, so concurrent writers share fsyncs
+// (group commit).
+//
+// When the share of dead records passes a threshold, a background thread
+// copies the live values into a new "base" segment. On restart every segment
+// older than the newest base segment is stale and deleted, the rest are
+// replayed in order, and a torn record at the end of a segment is cut off.
+//
+// Segment: magic (int), flags (byte, 1 = base)
+// Record:  crc32 of the rest (int), type (byte), key length (int),
+//          value length (int), key bytes, value bytes
+public class LogKeyValueStore implements KeyValueStore {
+    private static final int SEGMENT_MAGIC = 0x4C4B5653; // "LKVS"
+    private static final int SEGMENT_HEADER_SIZE = 5;
+    private static final byte FLAG_BASE = 1;
+    private static final int RECORD_HEADER_SIZE = 13;
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+    private static final int MIN_RECORDS_TO_COMPACT = 1000;
+
+    private static final class Location {
+        final int segment;
+        final long valueOffset;
+        final int valueLength;
+
+        Location(int segment, long valueOffset, int valueLength) {
+            this.segment = segment;
+            this.valueOffset = valueOffset;
+            this.valueLength = valueLength;
+        }
+    }
+
+    private final Path dir;
+    private final double compactDeadRatio;
+    private final boolean syncEveryWrite;
+
+    private final Map<String, Location> index = new HashMap<>();
+    private final TreeMap<Integer, FileChannel> segments = new TreeMap<>();
+    private final ExecutorService compactor;
+    private final CRC32 crc = new CRC32();
+
+    private int activeId;
+    private FileChannel active;
+    private long records;
+    private long deadRecords;
+    private boolean compacting = false;
+    private boolean closed = false;
+    private Exception compactionFailure;
+
+    // Group commit state, guarded by syncLock. Sequence numbers count
+    // appended bytes across all segments.
+    private final Object syncLock = new Object();
+    private long appendedSeq;
+    private long durableSeq;
+    private boolean syncing = false;
+
+    public LogKeyValueStore(Path dir) {
+        this(dir, 0.5, true);
+    }
+
+    public LogKeyValueStore(Path dir, double compactDeadRatio, boolean syncEveryWrite) {
+        this.dir = dir;
+        this.compactDeadRatio = compactDeadRatio;
+        this.syncEveryWrite = syncEveryWrite;
+        this.compactor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "kv-log-compactor");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            Files.createDirectories(dir);
+            recover();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to open log store " + dir, e);
+        }
+    }
+
+    @Override
+    public void put(String key, String value) {
+        append(PUT, key, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void remove(String key) {
+        append(REMOVE, key, new byte[0]);
+    }
+
+    @Override
+    public synchronized String getOrNull(String key) {
+        ensureOpen();
+        Location loc = index.get(key);
+        if (loc == null) return null;
+        ByteBuffer b = ByteBuffer.allocate(loc.valueLength);
+        try {
+            readFully(segments.get(loc.segment), b, loc.valueOffset);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read " + key, e);
+        }
+        return new String(b.array(), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void flush() {
+        long seq;
+        synchronized (syncLock) {
+            seq = appendedSeq;
+        }
+        awaitDurable(seq);
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) return;
+        }
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            for (FileChannel ch : segments.values()) closeQuietly(ch);
+        }
+    }
+
+    // ---------- Writes ----------
+
+    private void append(byte type, String key, byte[] value) {
+        byte[] k = key.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer rec = encodeRecord(type, k, value);
+        long seq;
+        boolean compact;
+
+        synchronized (this) {
+            ensureOpen();
+            long pos;
+            try {
+                pos = active.size();
+                writeFully(active, rec, pos);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to append to log", e);
+            }
+
+            records++;
+            Location old = type == PUT
+                    ? index.put(key, new Location(activeId, pos + RECORD_HEADER_SIZE + k.length, value.length))
+                    : index.remove(key);
+            if (old != null) deadRecords++;
+            if (type == REMOVE) deadRecords++; // a tombstone is never live
+
+            synchronized (syncLock) {
+                appendedSeq += rec.capacity();
+                seq = appendedSeq;
+            }
+            compact = !compacting && records >= MIN_RECORDS_TO_COMPACT
+                    && deadRecords > records * compactDeadRatio;
+            if (compact) compacting = true;
+        }
+
+        if (compact) compactor.execute(this::compactQuietly);
+        if (syncEveryWrite) awaitDurable(seq);
+    }
+
+    // Only one thread fsyncs at a time; it covers everything appended before
+    // it started, so the writers queued behind it usually return right away.
+    private void awaitDurable(long seq) {
+        while (true) {
+            synchronized (syncLock) {
+                while (syncing && durableSeq < seq) {
+                    try {
+                        syncLock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                if (durableSeq >= seq) return;
+                syncing = true;
+            }
+
+            long target = 0;
+            boolean synced = false;
+            try {
+                FileChannel ch;
+                synchronized (this) {
+                    ensureOpen();
+                    synchronized (syncLock) {
+                        target = appendedSeq;
+                    }
+                    ch = active;
+                }
+                ch.force(false);
+                synced = true;
+            } catch (ClosedChannelException e) {
+                // Rolled over by compaction, which forces its own output, so
+                // retry; a closed store never reopens, so give up instead
+                synchronized (this) {
+                    ensureOpen();
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to sync log", e);
+            } finally {
+                synchronized (syncLock) {
+                    syncing = false;
+                    if (synced && target > durableSeq) durableSeq = target;
+                    syncLock.notifyAll();
+                }
+            }
+        }
+    }
+
+    private ByteBuffer encodeRecord(byte type, byte[] k, byte[] v) {
+        ByteBuffer rec = ByteBuffer.allocate(RECORD_HEADER_SIZE + k.length + v.length);
+        rec.putInt(0);
+        rec.put(type).putInt(k.length).putInt(v.length).put(k).put(v);
+        synchronized (crc) {
+            crc.reset();
+            crc.update(rec.array(), 4, rec.capacity() - 4);
+            rec.putInt(0, (int) crc.getValue());
+        }
+        rec.flip();
+        return rec;
+    }
+
+    // ---------- Compaction ----------
+
+    // Runs on the compactor thread, so a failure cannot reach a caller
+    // directly: it is reported on stderr and kept for compactionFailure().
+    // The store stays usable, and the next write past the threshold retries.
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Compaction of " + dir + " failed: " + e);
+            synchronized (this) {
+                compactionFailure = e;
+                compacting = false;
+            }
+        }
+    }
+
+    // The most recent background compaction failure, or null if none has failed
+    public synchronized Exception compactionFailure() {
+        return compactionFailure;
+    }
+
+    // Writers keep going while the live values are copied: they move to a
+    // fresh segment first, and the copy gets the id between old and new.
+    private void compact() throws IOException {
+        int baseId;
+        long recordsAtRoll;
+        Map<String, Location> live;
+        synchronized (this) {
+            if (closed) return;
+            // Everything before the roll is durable, so a sync of the new
+            // active segment covers all earlier sequence numbers too.
+            active.force(false);
+            baseId = activeId + 1;
+            openSegment(baseId + 1, (byte) 0);
+            recordsAtRoll = records;
+            live = new HashMap<>(index);
+        }
+
+        Path tmp = dir.resolve(segmentName(baseId) + ".tmp");
+        Map<String, Location> moved = new HashMap<>();
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeFully(out, segmentHeader(FLAG_BASE), 0);
+            long pos = SEGMENT_HEADER_SIZE;
+            for (var e : live.entrySet()) {
+                Location loc = e.getValue();
+                if (loc.segment > baseId) continue; // already in the new active segment
+                ByteBuffer v = ByteBuffer.allocate(loc.valueLength);
+                synchronized (this) {
+                    FileChannel src = segments.get(loc.segment);
+                    if (src == null) continue;
+                    readFully(src, v, loc.valueOffset);
+                }
+                byte[] k = e.getKey().getBytes(StandardCharsets.UTF_8);
+                ByteBuffer rec = encodeRecord(PUT, k, v.array());
+                writeFully(out, rec, pos);
+                moved.put(e.getKey(), new Location(baseId, pos + RECORD_HEADER_SIZE + k.length, loc.valueLength));
+                pos += rec.capacity();
+            }
+            out.force(true);
+        }
+        Files.move(tmp, dir.resolve(segmentName(baseId)), StandardCopyOption.ATOMIC_MOVE);
+
+        synchronized (this) {
+            FileChannel base = FileChannel.open(dir.resolve(segmentName(baseId)),
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            segments.put(baseId, base);
+
+            for (var e : moved.entrySet()) {
+                // Only repoint keys nobody has written since the copy started
+                if (index.get(e.getKey()) == live.get(e.getKey())) index.put(e.getKey(), e.getValue());
+            }
+
+            var stale = new ArrayList<>(segments.headMap(baseId).keySet());
+            for (int id : stale) {
+                closeQuietly(segments.remove(id));
+                Files.deleteIfExists(dir.resolve(segmentName(id)));
+            }
+
+            // The base holds the copies; everything appended since the roll
+            // is in newer segments, superseded records and tombstones included
+            records = moved.size() + (records - recordsAtRoll);
+            deadRecords = records - index.size();
+            compacting = false;
+        }
+    }
+
+    // Records that are superseded or tombstones, as counted for compaction
+    synchronized long deadRecords() {
+        return deadRecords;
+    }
+
+    // Waits for a compaction that is queued or running to finish
+    void awaitCompaction() throws InterruptedException {
+        try {
+            compactor.submit(() -> { }).get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // ---------- Recovery ----------
+
+    private void recover() throws IOException {
+        try (var stream = Files.newDirectoryStream(dir, "seg-*.log.tmp")) {
+            for (Path tmp : stream) Files.delete(tmp); // unfinished compaction
+        }
+
+        TreeMap<Integer, Path> found = new TreeMap<>();
+        try (var stream = Files.newDirectoryStream(dir, "seg-*.log")) {
+            for (Path p : stream) {
+                String name = p.getFileName().toString();
+                try {
+                    found.put(Integer.parseInt(name.substring(4, name.length() - 4)), p);
+                } catch (NumberFormatException e) {
+                    // not ours, e.g. seg-old.log; leave it alone
+                }
+            }
+        }
+
+        int newestBase = Integer.MIN_VALUE;
+        for (var e : found.entrySet()) {
+            if (isBaseSegment(e.getValue())) newestBase = e.getKey();
+        }
+        for (var it = found.entrySet().iterator(); it.hasNext(); ) {
+            var e = it.next();
+            if (e.getKey() < newestBase) {
+                Files.delete(e.getValue());
+                it.remove();
+            }
+        }
+
+        for (var e : found.entrySet()) {
+            FileChannel ch = FileChannel.open(e.getValue(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            segments.put(e.getKey(), ch);
+            replaySegment(e.getKey(), ch);
+        }
+
+        if (segments.isEmpty()) {
+            openSegment(1, (byte) 0);
+        } else {
+            activeId = segments.lastKey();
+            active = segments.lastEntry().getValue();
+        }
+    }
+
+    private boolean isBaseSegment(Path p) throws IOException {
+        try (FileChannel ch = FileChannel.open(p, StandardOpenOption.READ)) {
+            ByteBuffer h = ByteBuffer.allocate(SEGMENT_HEADER_SIZE);
+            ch.read(h, 0);
+            return h.position() == SEGMENT_HEADER_SIZE && h.getInt(0) == SEGMENT_MAGIC
+                    && h.get(4) == FLAG_BASE;
+        }
+    }
+
+    private void replaySegment(int id, FileChannel ch) throws IOException {
+        long size = ch.size();
+        ByteBuffer h = ByteBuffer.allocate(SEGMENT_HEADER_SIZE);
+        if (size < SEGMENT_HEADER_SIZE || ch.read(h, 0) < SEGMENT_HEADER_SIZE || h.getInt(0) != SEGMENT_MAGIC) {
+            // never got its header: start the segment over
+            ch.truncate(0);
+            writeFully(ch, segmentHeader((byte) 0), 0);
+            return;
+        }
+
+        long pos = SEGMENT_HEADER_SIZE;
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+        while (pos + RECORD_HEADER_SIZE <= size) {
+            header.clear();
+            readFully(ch, header, pos);
+            int expectedCrc = header.getInt(0);
+            byte type = header.get(4);
+            int keyLen = header.getInt(5);
+            int valLen = header.getInt(9);
+            if ((type != PUT && type != REMOVE) || keyLen < 0 || valLen < 0
+                    || pos + RECORD_HEADER_SIZE + keyLen + valLen > size) break;
+
+            ByteBuffer body = ByteBuffer.allocate(keyLen + valLen);
+            readFully(ch, body, pos + RECORD_HEADER_SIZE);
+            crc.reset();
+            crc.update(header.array(), 4, RECORD_HEADER_SIZE - 4);
+            crc.update(body.array());
+            if ((int) crc.getValue() != expectedCrc) break;
+
+            String key = new String(body.array(), 0, keyLen, StandardCharsets.UTF_8);
+            records++;
+            Location old = type == PUT
+                    ? index.put(key, new Location(id, pos + RECORD_HEADER_SIZE + keyLen, valLen))
+                    : index.remove(key);
+            if (old != null) deadRecords++;
+            if (type == REMOVE) deadRecords++;
+            pos += RECORD_HEADER_SIZE + keyLen + valLen;
+        }
+
+        if (pos < size) {
+            ch.truncate(pos); // torn tail
+            ch.force(true);
+        }
+    }
+
+    // ---------- Files ----------
+
+    private void openSegment(int id, byte flags) throws IOException {
+        FileChannel ch = FileChannel.open(dir.resolve(segmentName(id)), StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        writeFully(ch, segmentHeader(flags), 0);
+        ch.force(true);
+        segments.put(id, ch);
+        activeId = id;
+        active = ch;
+    }
+
+    private static ByteBuffer segmentHeader(byte flags) {
+        ByteBuffer h = ByteBuffer.allocate(SEGMENT_HEADER_SIZE);
+        h.putInt(SEGMENT_MAGIC).put(flags).flip();
+        return h;
+    }
+
+    private static String segmentName(int id) {
+        return String.format("seg-%08d.log", id);
+    }
+
+    private static void writeFully(FileChannel ch, ByteBuffer b, long pos) throws IOException {
+        while (b.hasRemaining()) pos += ch.write(b, pos);
+    }
+
+    private static void readFully(FileChannel ch, ByteBuffer b, long pos) throws IOException {
+        while (b.hasRemaining()) {
+            int n = ch.read(b, pos);
+            if (n < 0) throw new IOException("Unexpected end of segment");
+            pos += n;
+        }
+    }
+
+    private static void closeQuietly(FileChannel ch) {
+        if (ch == null) return;
+        try {
+            ch.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) throw new IllegalStateException("Store is closed");
+    }
+}
@@ -0,0 +1,262 @@
+package storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+// KeyValueStore over a memory-mapped, preallocated file.
+//
+// File layout:
+//   header: magic, version, end offset, reserved (4 x int)
+//   slots:  slot length, flag (byte), key length, value length, crc32(key + value),
+//           key bytes, value bytes, padding to 8 bytes
+//   flag:   0 dead, 1 value, 2 removal (no value)
+//
+// Slots are never overwritten: a put or remove appends a new slot, and on
+// load the last valid slot for a key wins. A crash mid-write can only tear the
+// new slot, whose checksum then fails, so the previous value survives. Once
+// superseded slots take more room than live ones the live slots are copied to
+// a new file that atomically replaces the old one.
+//
+// Writes only touch the mapping; the OS writes pages back, and flush()/close()
+// force them to disk.
+public class MappedKeyValueStore implements KeyValueStore {
+    private static final int MAGIC = 0x4D4B5653; // "MKVS"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int END_OFFSET = 8;
+    private static final int SLOT_HEADER_SIZE = 17;
+    private static final int INITIAL_SIZE = 64 * 1024;
+    private static final byte VALUE = 1;
+    private static final byte REMOVAL = 2;
+
+    private final Path filePath;
+    private FileChannel channel;
+    private final Map<String, Integer> slots = new HashMap<>(); // key -> offset of its value slot
+    private final CRC32 crc = new CRC32();
+    private MappedByteBuffer buf;
+    private int end;
+    private int liveBytes; // in the slots the index points to
+
+    public MappedKeyValueStore(Path filePath) {
+        this.filePath = filePath;
+        try {
+            if (filePath.getParent() != null) Files.createDirectories(filePath.getParent());
+            channel = open(filePath);
+            // Checked before mapping, which would grow a foreign file
+            ByteBuffer head = ByteBuffer.allocate(HEADER_SIZE);
+            channel.read(head, 0);
+            boolean fresh = head.getLong(0) == 0 && head.getLong(8) == 0; // empty, or created but never written
+            if (!fresh && head.getInt(0) != MAGIC) throw new IOException("Not a mapped key-value store (bad magic)");
+            map(Math.max(INITIAL_SIZE, channel.size()));
+            if (fresh) {
+                initHeader();
+            } else {
+                if (buf.getInt(4) != VERSION) throw new IOException("Unsupported store version");
+                scan();
+            }
+        } catch (IOException e) {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                }
+            }
+            throw new RuntimeException("Failed to open store " + filePath, e);
+        }
+    }
+
+    @Override
+    public synchronized void put(String key, String value) {
+        int off = append(VALUE, key.getBytes(StandardCharsets.UTF_8), value.getBytes(StandardCharsets.UTF_8));
+        Integer old = slots.put(key, off);
+        if (old != null) liveBytes -= buf.getInt(old);
+        liveBytes += buf.getInt(off);
+        compactIfWasteful();
+    }
+
+    @Override
+    public synchronized String getOrNull(String key) {
+        Integer off = slots.get(key);
+        if (off == null) return null;
+        int keyLen = buf.getInt(off + 5);
+        int valLen = buf.getInt(off + 9);
+        byte[] v = new byte[valLen];
+        buf.get(off + SLOT_HEADER_SIZE + keyLen, v);
+        return new String(v, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public synchronized void remove(String key) {
+        Integer old = slots.remove(key);
+        if (old == null) return;
+        liveBytes -= buf.getInt(old);
+        append(REMOVAL, key.getBytes(StandardCharsets.UTF_8), new byte[0]);
+        compactIfWasteful();
+    }
+
+    // Copies the live slots to a new file that replaces this one
+    public synchronized void compact() {
+        Path tmp = filePath.resolveSibling(filePath.getFileName() + ".compact");
+        int size = INITIAL_SIZE;
+        while (size - HEADER_SIZE < liveBytes * 2L && size < Integer.MAX_VALUE / 2) size *= 2;
+        try {
+            Map<String, Integer> moved = new HashMap<>();
+            int newEnd = HEADER_SIZE;
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer dst = out.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                for (Map.Entry<String, Integer> e : slots.entrySet()) {
+                    int off = e.getValue();
+                    int slotLen = buf.getInt(off);
+                    dst.put(newEnd, buf, off, slotLen);
+                    moved.put(e.getKey(), newEnd);
+                    newEnd += slotLen;
+                }
+                dst.putInt(0, MAGIC);
+                dst.putInt(4, VERSION);
+                dst.putInt(END_OFFSET, newEnd);
+                dst.force();
+            }
+            buf.force();
+            try {
+                Files.move(tmp, filePath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                Files.deleteIfExists(tmp); // the old file and channel are untouched
+                throw e;
+            }
+            FileChannel old = channel;
+            channel = open(filePath);
+            map(size);
+            old.close();
+            slots.clear();
+            slots.putAll(moved);
+            end = newEnd;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to compact store " + filePath, e);
+        }
+    }
+
+    // Bytes in slots that are dead, superseded or removals
+    synchronized int wastedBytes() {
+        return end - HEADER_SIZE - liveBytes;
+    }
+
+    @Override
+    public synchronized void flush() {
+        buf.force();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!channel.isOpen()) return;
+        buf.force();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to close store", e);
+        }
+    }
+
+    // Writes a complete slot after the last one, the flag last; returns its offset
+    private int append(byte flag, byte[] k, byte[] v) {
+        int slotLen = align(SLOT_HEADER_SIZE + k.length + v.length);
+        ensureCapacity(end + slotLen);
+        int off = end;
+        buf.putInt(off, slotLen);
+        buf.putInt(off + 5, k.length);
+        buf.putInt(off + 9, v.length);
+        buf.put(off + SLOT_HEADER_SIZE, k);
+        buf.put(off + SLOT_HEADER_SIZE + k.length, v);
+        crc.reset();
+        crc.update(k);
+        crc.update(v);
+        buf.putInt(off + 13, (int) crc.getValue());
+        buf.put(off + 4, flag);
+
+        end += slotLen;
+        buf.putInt(END_OFFSET, end);
+        return off;
+    }
+
+    private void compactIfWasteful() {
+        int wasted = wastedBytes();
+        if (wasted > INITIAL_SIZE && wasted > liveBytes) compact();
+    }
+
+    private void initHeader() {
+        buf.putInt(0, MAGIC);
+        buf.putInt(4, VERSION);
+        end = HEADER_SIZE;
+        buf.putInt(END_OFFSET, end);
+    }
+
+    // Rebuilds the key index, later slots overriding earlier ones. Slots whose
+    // checksum does not match (a write interrupted by a crash) are skipped; a
+    // bad slot length ends the scan.
+    private void scan() {
+        int limit = Math.min(buf.getInt(END_OFFSET), buf.capacity());
+        int off = HEADER_SIZE;
+        while (off + SLOT_HEADER_SIZE <= limit) {
+            int slotLen = buf.getInt(off);
+            if (slotLen < SLOT_HEADER_SIZE || off + slotLen > limit) break;
+
+            byte flag = buf.get(off + 4);
+            if (flag == VALUE || flag == REMOVAL) {
+                int keyLen = buf.getInt(off + 5);
+                int valLen = buf.getInt(off + 9);
+                if (keyLen >= 0 && valLen >= 0 && SLOT_HEADER_SIZE + keyLen + valLen <= slotLen) {
+                    byte[] k = new byte[keyLen];
+                    byte[] v = new byte[valLen];
+                    buf.get(off + SLOT_HEADER_SIZE, k);
+                    buf.get(off + SLOT_HEADER_SIZE + keyLen, v);
+                    crc.reset();
+                    crc.update(k);
+                    crc.update(v);
+                    if ((int) crc.getValue() == buf.getInt(off + 13)) {
+                        String key = new String(k, StandardCharsets.UTF_8);
+                        Integer old = flag == VALUE ? slots.put(key, off) : slots.remove(key);
+                        if (old != null) liveBytes -= buf.getInt(old);
+                        if (flag == VALUE) liveBytes += slotLen;
+                    }
+                }
+            }
+            off += slotLen;
+        }
+        end = off;
+        buf.putInt(END_OFFSET, end);
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= buf.capacity()) return;
+        long size = buf.capacity();
+        while (size < needed) size *= 2;
+        if (size > Integer.MAX_VALUE) throw new IllegalStateException("Store is full");
+        try {
+            buf.force();
+            map(size);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to grow store", e);
+        }
+    }
+
+    private static FileChannel open(Path filePath) throws IOException {
+        return FileChannel.open(filePath, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private void map(long size) throws IOException {
+        // Mapping past the end of the file extends it
+        buf = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    private static int align(int n) {
+        return (n + 7) & ~7;
+    }
+}
@@ -0,0 +1,97 @@
+package storage;
+
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Write-back cache in front of a FileKeyValueStore.
+// The properties file is read once; reads and writes then only touch memory.
+// Dirty state is written back on a fixed interval, on flush() and on close().
+public class WriteBackKeyValueStore implements KeyValueStore {
+    private final FileKeyValueStore file;
+    private final Properties cache;
+    private final Object flushLock = new Object();
+    private final ScheduledExecutorService flusher;
+
+    private boolean dirty = false;
+    private boolean closed = false;
+
+    public WriteBackKeyValueStore(FileKeyValueStore file, long flushIntervalMillis) {
+        this.file = file;
+        this.cache = file.loadProps();
+
+        if (flushIntervalMillis > 0) {
+            flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "kv-write-back");
+                t.setDaemon(true);
+                return t;
+            });
+            flusher.scheduleWithFixedDelay(this::flushQuietly,
+                    flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            flusher = null; // only explicit flush()/close()
+        }
+    }
+
+    @Override
+    public synchronized void put(String key, String value) {
+        ensureOpen();
+        cache.setProperty(key, value);
+        dirty = true;
+    }
+
+    @Override
+    public synchronized String getOrNull(String key) {
+        return cache.getProperty(key);
+    }
+
+    @Override
+    public synchronized void remove(String key) {
+        ensureOpen();
+        if (cache.remove(key) != null) dirty = true;
+    }
+
+    @Override
+    public void flush() {
+        // flushLock keeps write-backs in order; the store lock is only held
+        // long enough to copy the cache, so put() never waits on the disk.
+        synchronized (flushLock) {
+            Properties copy;
+            synchronized (this) {
+                if (!dirty) return;
+                copy = new Properties();
+                copy.putAll(cache);
+                dirty = false;
+            }
+            try {
+                file.saveProps(copy);
+            } catch (RuntimeException e) {
+                synchronized (this) { dirty = true; }
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+        }
+        if (flusher != null) flusher.shutdown();
+        flush();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException ignored) {
+            // stays dirty; the next interval or close() retries
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) throw new IllegalStateException("Store is closed");
+    }
+}
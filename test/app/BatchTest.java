@@ -0,0 +1,81 @@
+package app;
+
+import domain.CardCatalog;
+import domain.ChipColor;
+import domain.Game;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchTest {
+    // One free card and one that costs a red chip, so a game ends in two buys
+    private static final CardCatalog DECK = CardCatalog.fromDefinitions(List.of("D0|2|FREE", "D1|1|R1"));
+
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final PrintStream out = new PrintStream(bytes, true, StandardCharsets.UTF_8);
+
+    @Test
+    void playsAGameToTheEnd() throws IOException {
+        Game g = Game.newUnsaved(DECK);
+        int status = run(g, "# player 1 takes two reds", "", "T R", "T r", "B D0", "  B D1  ");
+
+        assertEquals(List.of("ok", "ok", "ok", "ok", "game over 2"), replies());
+        assertEquals(0, status);
+        assertTrue(g.isGameOver());
+    }
+
+    @Test
+    void rejectedMovesAndBadCommandsAreReportedAndPlayGoesOn() throws IOException {
+        Game g = Game.newUnsaved(DECK);
+        int status = run(g, "T R", "T X", "B D1", "B", "B D9", "Q", "T B");
+
+        assertEquals(1, status);
+        assertEquals(List.of(
+                "ok",
+                "error BAD_COMMAND: T X",
+                "error BUY_AFTER_CHIPS: You cannot buy a card after taking chips this turn.",
+                "error BAD_COMMAND: B",
+                "error BUY_AFTER_CHIPS: You cannot buy a card after taking chips this turn.",
+                "error BAD_COMMAND: Q",
+                "ok"), replies());
+        assertEquals(1, g.getPlayer(0).getChips(ChipColor.BLUE));
+    }
+
+    @Test
+    void movesAfterTheGameIsOverAreRejectedUntilANewGame() throws IOException {
+        Game g = Game.newUnsaved(DECK);
+        int status = run(g, "T R", "T R", "B D0", "B D1", "T G", "N", "T G");
+
+        assertEquals(1, status);
+        assertEquals(List.of("ok", "ok", "ok", "ok", "game over 2",
+                "error GAME_OVER: Game over. Start a new game to keep playing.", "ok", "ok"), replies());
+        assertFalse(g.isGameOver());
+    }
+
+    @Test
+    void printWritesTheTextSnapshot() throws IOException {
+        Game g = Game.newUnsaved(DECK);
+        run(g, "T K", "P");
+
+        List<String> lines = replies();
+        assertEquals("ok", lines.get(0));
+        assertTrue(lines.contains("P0:chips=R0,B0,G0,K1,W0;vp=0"), lines.toString());
+        assertTrue(lines.contains("BOARD:D0|2|FREE;D1|1|R1"), lines.toString());
+    }
+
+    private int run(Game g, String... lines) throws IOException {
+        return Batch.run(g, new BufferedReader(new StringReader(String.join("\n", lines))), out);
+    }
+
+    private List<String> replies() {
+        return bytes.toString(StandardCharsets.UTF_8).lines().toList();
+    }
+}
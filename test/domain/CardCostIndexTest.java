@@ -0,0 +1,68 @@
+package domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardCostIndexTest {
+    @Test
+    void affordableMatchesAScanOfEveryCard() {
+        SplittableRandom rng = new SplittableRandom(7);
+        for (int size : new int[] { 1, 15, 16, 17, 500, 4096 }) {
+            CardCatalog deck = randomDeck(size, rng);
+            for (int trial = 0; trial < 50; trial++) {
+                Player p = new Player();
+                for (ChipColor c : ChipColor.values()) p.addChip(c, rng.nextInt(9));
+
+                List<Card> expected = new ArrayList<>();
+                for (Card c : deck.cards()) if (p.canAfford(c)) expected.add(c);
+                List<Card> actual = deck.costIndex().affordableBy(p);
+                assertEquals(expected.size(), actual.size());
+                assertEquals(new HashSet<>(expected), new HashSet<>(actual));
+            }
+        }
+    }
+
+    @Test
+    void markAffordableOnlyAddsCandidates() {
+        SplittableRandom rng = new SplittableRandom(11);
+        CardCatalog deck = randomDeck(1000, rng);
+        Player p = new Player();
+        for (ChipColor c : ChipColor.values()) p.addChip(c, 4);
+        long[] candidates = new long[(deck.size() + 63) >>> 6];
+        for (int i = 0; i < deck.size(); i += 3) candidates[i >>> 6] |= 1L << i;
+        long[] mask = new long[candidates.length];
+
+        deck.costIndex().markAffordable(p.getPackedChips(), candidates, mask);
+        for (int i = 0; i < deck.size(); i++) {
+            boolean set = (mask[i >>> 6] & 1L << i) != 0;
+            assertEquals(i % 3 == 0 && p.canAfford(deck.get(i)), set, "card " + i);
+        }
+    }
+
+    @Test
+    void cheapestWorthPicksTheFewestChips() {
+        CardCatalog deck = CardCatalog.standard();
+        assertEquals("C5", deck.costIndex().cheapestWorth(2).getId());
+        assertEquals("C14", deck.costIndex().cheapestWorth(5).getId());
+        assertNull(deck.costIndex().cheapestWorth(6));
+    }
+
+    // Cards costing 0..6 in each of one to five colors
+    private static CardCatalog randomDeck(int size, SplittableRandom rng) {
+        List<String> lines = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            StringBuilder cost = new StringBuilder();
+            for (ChipColor c : ChipColor.values()) {
+                if (rng.nextInt(3) > 0) cost.append(c.toChar()).append(rng.nextInt(7));
+            }
+            lines.add("D" + i + "|" + rng.nextInt(6) + "|" + (cost.length() == 0 ? "FREE" : cost));
+        }
+        return CardCatalog.fromDefinitions(lines);
+    }
+}
@@ -0,0 +1,85 @@
+package domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameListenerTest {
+    @Test
+    void listenersSeeThePublishedMove() {
+        Game g = Game.newUnsaved();
+        g.enablePublishing();
+        List<String> seen = new ArrayList<>();
+        g.addListener(new GameListener() {
+            @Override
+            public void chipsChanged(int seat) {
+                seen.add("chips " + g.getPublishedState().getPlayer(seat).getChips(ChipColor.RED));
+            }
+
+            @Override
+            public void turnChanged(int currentSeat) {
+                seen.add("turn " + g.getPublishedState().getCurrentPlayerIndex() + "=" + currentSeat);
+            }
+        });
+
+        g.takeChip(ChipColor.RED);
+        assertEquals(List.of("chips 1"), seen);
+
+        seen.clear();
+        g.takeChip(ChipColor.RED); // two of a kind ends the turn
+        assertEquals(List.of("chips 2", "turn 1=1"), seen);
+    }
+
+    @Test
+    void aBoughtCardIsGoneFromThePublishedStateWhenReported() {
+        Game g = Game.newUnsaved();
+        g.getPlayer(0).addChip(ChipColor.BLUE, 2);
+        g.getPlayer(0).addChip(ChipColor.BLACK, 2);
+        g.enablePublishing();
+        List<String> seen = new ArrayList<>();
+        g.addListener(new GameListener() {
+            @Override
+            public void cardRemoved(int slot) {
+                seen.add("card gone " + (g.getPublishedState().cardAt(slot) == null));
+            }
+        });
+
+        g.buyCard("C1");
+        assertEquals(List.of("card gone true"), seen);
+    }
+
+    @Test
+    void aMoveThatThrowsStillDeliversItsEvents() {
+        boolean[] failing = { false };
+        SnapshotStore store = new SnapshotStore() {
+            @Override
+            public void saveSnapshot(String snapshot) {
+                if (failing[0]) throw new RuntimeException("disk full");
+            }
+            @Override public String loadSnapshotOrNull() { return null; }
+            @Override public void clear() { }
+        };
+        LeaderboardStore lb = new LeaderboardStore() {
+            @Override public void saveLeaderboard(String data) { }
+            @Override public String loadLeaderboardOrNull() { return null; }
+        };
+        Game g = Game.loadOrNew(store, lb);
+        List<String> seen = new ArrayList<>();
+        g.addListener(new GameListener() {
+            @Override public void chipsChanged(int seat) { seen.add("chips"); }
+            @Override public void boardReset() { seen.add("reset"); }
+        });
+
+        failing[0] = true;
+        assertThrows(RuntimeException.class, () -> g.takeChip(ChipColor.RED));
+        assertEquals(List.of("chips"), seen);
+        assertEquals(1, g.getPublishedState().getPlayer(0).getChips(ChipColor.RED));
+
+        failing[0] = false;
+        g.startNewGame();
+        assertEquals(List.of("chips", "reset"), seen);
+    }
+}
@@ -0,0 +1,160 @@
+package domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameRegistryTest {
+    // Like AsyncSnapshotStore: saves are only visible to other instances
+    // (a game loaded again after eviction) once awaitPersisted has run.
+    private static final class BufferedSnapshots implements SnapshotStore {
+        private final Map<String, String> disk;
+        private final String id;
+        private String pending;
+        private boolean dirty;
+
+        BufferedSnapshots(Map<String, String> disk, String id) {
+            this.disk = disk;
+            this.id = id;
+        }
+
+        @Override public synchronized void saveSnapshot(String s) { pending = s; dirty = true; }
+        @Override public synchronized void clear() { pending = null; dirty = true; }
+        @Override public synchronized String loadSnapshotOrNull() { return dirty ? pending : disk.get(id); }
+
+        @Override
+        public synchronized void awaitPersisted() {
+            if (!dirty) return;
+            if (pending == null) disk.remove(id);
+            else disk.put(id, pending);
+            dirty = false;
+        }
+    }
+
+    private static final class MemoryLeaderboard implements LeaderboardStore {
+        private volatile String data;
+        @Override public void saveLeaderboard(String d) { data = d; }
+        @Override public String loadLeaderboardOrNull() { return data; }
+    }
+
+    private final Map<String, String> disk = new ConcurrentHashMap<>();
+    private final AtomicInteger storesOpened = new AtomicInteger();
+    private final GameRegistry registry = new GameRegistry(id -> {
+        storesOpened.incrementAndGet();
+        return new BufferedSnapshots(disk, id);
+    }, id -> new MemoryLeaderboard());
+
+    @Test
+    void concurrentFirstUsesLoadTheGameOnce() throws InterruptedException {
+        runConcurrently(8, t -> registry.run("g", g -> takeAnyChip(g)));
+        assertEquals(1, storesOpened.get());
+        assertEquals(8, registry.withGame("g", GameRegistryTest::totalChips));
+    }
+
+    @Test
+    void evictionNeverLosesAMove() throws InterruptedException {
+        AtomicInteger moves = new AtomicInteger();
+        runConcurrently(5, t -> {
+            for (int i = 0; i < 300; i++) {
+                if (t == 0) {
+                    registry.evict("g");
+                } else {
+                    registry.run("g", g -> takeAnyChip(g));
+                    moves.incrementAndGet();
+                }
+            }
+        });
+        registry.evict("g");
+        assertFalse(registry.isActive("g"));
+        assertEquals(moves.get(), registry.withGame("g", GameRegistryTest::totalChips));
+    }
+
+    @Test
+    void retiredGamesStartOverAndRetireNeverWipesALaterGame() throws InterruptedException {
+        registry.run("g", g -> takeAnyChip(g));
+        registry.retire("g");
+        assertFalse(registry.isActive("g"));
+        assertNull(disk.get("g"));
+        assertEquals(0, registry.withGame("g", GameRegistryTest::totalChips));
+
+        registry.run("g", g -> takeAnyChip(g));
+        registry.evict("g");
+        assertNotNull(disk.get("g"));
+        registry.retire("g"); // not loaded: the snapshot is still deleted for good
+        assertNull(disk.get("g"));
+        assertFalse(registry.isActive("g"));
+
+        // Every move after the last retire must survive it
+        AtomicInteger sinceRetire = new AtomicInteger();
+        runConcurrently(4, t -> {
+            for (int i = 0; i < 200; i++) {
+                if (t == 0) {
+                    registry.run("g", g -> {
+                        registry.retire("g"); // reentrant: same thread holds the slot lock
+                        sinceRetire.set(0);
+                    });
+                } else {
+                    registry.run("g", g -> {
+                        takeAnyChip(g);
+                        sinceRetire.incrementAndGet();
+                    });
+                }
+            }
+        });
+        registry.evict("g");
+        assertEquals(sinceRetire.get(), registry.withGame("g", GameRegistryTest::totalChips));
+    }
+
+    private static void takeAnyChip(Game g) {
+        int[] moves = new int[LegalMoves.maxMoves(g)];
+        int n = LegalMoves.generate(g, moves);
+        for (int i = 0; i < n; i++) {
+            if (LegalMoves.type(moves[i]) == LegalMoves.TAKE_CHIP) {
+                assertTrue(LegalMoves.apply(g, moves[i]).isOk());
+                return;
+            }
+        }
+        fail("no chip move");
+    }
+
+    private static int totalChips(Game g) {
+        int total = 0;
+        for (int seat = 0; seat < 2; seat++) {
+            for (ChipColor c : ChipColor.values()) total += g.getPlayer(seat).getChips(c);
+        }
+        return total;
+    }
+
+    private interface Task {
+        void run(int thread);
+    }
+
+    private static void runConcurrently(int threads, Task task) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> started = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            Thread th = new Thread(() -> {
+                try {
+                    start.await();
+                    task.run(thread);
+                } catch (Throwable e) {
+                    synchronized (failures) { failures.add(e); }
+                }
+            });
+            th.start();
+            started.add(th);
+        }
+        start.countDown();
+        for (Thread th : started) th.join();
+        if (!failures.isEmpty()) throw new AssertionError(failures.get(0));
+    }
+}
@@ -0,0 +1,120 @@
+package domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameSnapshotCodecTest {
+    private final GameSnapshotCodec text = new GameSnapshotCodec(GameSnapshotCodec.Format.TEXT);
+    private final GameSnapshotCodec binary = new GameSnapshotCodec(GameSnapshotCodec.Format.BINARY);
+
+    // Mid-turn (two chips taken), an inline card not in the catalog, and a
+    // catalog id whose definition differs from the catalog's
+    private static final String MID_TURN =
+            "P0:chips=R1,B2,G0,K0,W3;vp=4\n"
+            + "P1:chips=R0,B0,G1,K0,W0;vp=0\n"
+            + "TURN:current=1;choseChipAction=true;chipsTaken=R,B\n"
+            + "BOARD:C1|1|B2K2;X9|4|R2W1;C2|5|R1;C5|2|R3\n";
+
+    @Test
+    void textToBinaryToTextKeepsEverything() {
+        Game g = decode(MID_TURN);
+        assertEquals(MID_TURN, text.encodeText(g));
+
+        byte[] bytes = binary.encodeBinary(g);
+        Game viaBase64 = decode(Base64.getEncoder().encodeToString(bytes));
+        Game viaRaw = decode(new String(bytes, StandardCharsets.ISO_8859_1));
+
+        assertEquals(MID_TURN, text.encodeText(viaBase64));
+        assertEquals(MID_TURN, text.encodeText(viaRaw));
+    }
+
+    @Test
+    void inlineCardsAreNotReplacedByCatalogCards() {
+        Game g = decode(binary.encode(decode(MID_TURN)));
+        Card c2 = g.getBoard().getCardById("C2");
+        assertEquals(5, c2.getVictoryPoints());
+        assertEquals(1, c2.getCost(ChipColor.RED));
+        assertNotSame(CardCatalog.standard().byId("C2"), c2);
+        assertNotNull(g.getBoard().getCardById("X9"));
+    }
+
+    @Test
+    void playedPositionRoundTripsThroughBothFormats() {
+        Game g = Game.newUnsaved();
+        for (char c : "RBGKKBBRW".toCharArray()) g.takeChip(ChipColor.fromChar(c));
+        g.takeChip(ChipColor.GREEN); // mid-turn: one chip taken
+
+        String before = text.encodeText(g);
+        assertEquals(before, text.encodeText(decode(binary.encode(g))));
+        assertEquals(before, text.encodeText(decode(text.encode(g))));
+        assertTrue(decode(binary.encode(g)).samePositionAs(g));
+    }
+
+    @Test
+    void rejectsUnknownVersion() {
+        byte[] bytes = binary.encodeBinary(Game.newUnsaved());
+        bytes[1] = (byte) (GameSnapshotCodec.VERSION + 1);
+        String snapshot = Base64.getEncoder().encodeToString(bytes);
+        assertThrows(IllegalArgumentException.class, () -> decode(snapshot));
+    }
+
+    @Test
+    void rejectsASnapshotSavedWithAnotherDeck() {
+        CardCatalog other = CardCatalog.fromDefinitions(List.of("D0|1|R1", "D1|2|B2"));
+        GameSnapshotCodec otherBinary = new GameSnapshotCodec(GameSnapshotCodec.Format.BINARY, other);
+        String snapshot = otherBinary.encode(Game.newUnsaved(other));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> decode(snapshot));
+        assertTrue(e.getMessage().contains("different deck"), e.getMessage());
+        assertEquals(2, otherBinary.decode(snapshot, null, null, new Leaderboard()).getBoard().getAvailable().size());
+    }
+
+    @Test
+    void skipsUnknownSectionsAndFields() {
+        String snapshot = "NOTES:anything at all\n"
+                + "P0:chips=R1,B2,G0,K0,W3;vp=4;rank=gold\n"
+                + "TURN:mood=calm;current=1\n";
+        Game g = decode(snapshot);
+        assertEquals(4, g.getPlayer(0).getVictoryPoints());
+        assertEquals(3, g.getPlayer(0).getChips(ChipColor.WHITE));
+        assertEquals(1, g.getTurnState().getCurrentPlayerIndex());
+    }
+
+    @Test
+    void skipsBoardEntriesWithoutThreeFields() {
+        Game g = decode("BOARD:C1|1;C2|5|R1;X9\n");
+        assertEquals(1, g.getBoard().getAvailable().size());
+        assertNotNull(g.getBoard().getCardById("C2"));
+    }
+
+    @Test
+    void freeIsReadInAnyCase() {
+        Game g = decode("BOARD:X1|0|Free;X2|0|FREE;X3|0|free\n");
+        assertEquals(3, g.getBoard().getAvailable().size());
+        for (Card c : g.getBoard().getAvailable()) {
+            for (ChipColor color : ChipColor.values()) assertEquals(0, c.getCost(color));
+        }
+    }
+
+    @Test
+    void readsWindowsLineEndings() {
+        assertEquals(MID_TURN, text.encodeText(decode(MID_TURN.replace("\n", "\r\n"))));
+    }
+
+    @Test
+    void aBadNumberIsReportedWhereItStands() {
+        String snapshot = "P0:chips=R1,B2,G0,K0,W3;vp=4\n"
+                + "P1:chips=R0,Bx\n";
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> decode(snapshot));
+        assertTrue(e.getMessage().contains("line 2, column 14"), e.getMessage());
+    }
+
+    private Game decode(String snapshot) {
+        return text.decode(snapshot, null, null, new Leaderboard());
+    }
+}
@@ -0,0 +1,49 @@
+package domain;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameStateTest {
+    @Test
+    void aNewDealDoesNotReuseTheLastLiveSet() {
+        Game g = Game.newUnsaved();
+        buy(g, "C1", ChipColor.BLUE, ChipColor.BLACK);
+        GameState first = g.getState();
+
+        g.startNewGame();
+        buy(g, "C2", ChipColor.GREEN, ChipColor.WHITE);
+        GameState second = g.getState();
+
+        assertNull(first.cardAt(0));
+        assertEquals("C1", second.cardAt(0).getId());
+        assertNull(second.cardAt(1));
+
+        Game other = Game.newUnsaved();
+        other.restoreState(second);
+        assertNotNull(other.getBoard().getCardById("C1"));
+        assertNull(other.getBoard().getCardById("C2"));
+    }
+
+    @Test
+    void copyStateFromDoesNotReuseTheLastLiveSet() {
+        Game source = Game.newUnsaved();
+        buy(source, "C2", ChipColor.GREEN, ChipColor.WHITE);
+
+        Game g = Game.newUnsaved();
+        buy(g, "C1", ChipColor.BLUE, ChipColor.BLACK);
+        g.getState();
+        g.copyStateFrom(source);
+        GameState s = g.getState();
+
+        assertEquals("C1", s.cardAt(0).getId());
+        assertNull(s.cardAt(1));
+    }
+
+    private static void buy(Game g, String cardId, ChipColor a, ChipColor b) {
+        Player p = g.getPlayer(g.getCurrentPlayerNumber() - 1);
+        p.addChip(a, 2);
+        p.addChip(b, 2);
+        g.buyCard(cardId);
+    }
+}
@@ -0,0 +1,48 @@
+package domain;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeaderboardTest {
+    @Test
+    void statsCoverMoreThanTheKeptEntriesAfterDecode() {
+        Leaderboard lb = new Leaderboard();
+        int[][] games = { { 15, 9 }, { 12, 15 }, { 16, 3 }, { 10, 10 }, { 15, 14 }, { 15, 80 }, { 17, 2 } };
+        for (int i = 0; i < games.length; i++) lb.addEntry(games[i][0], games[i][1], 1000 + i);
+
+        Leaderboard decoded = Leaderboard.decode(lb.encode());
+        assertTrue(decoded.hasStoredStats());
+        assertEquals(4, decoded.getEntries().size());
+        assertSameStats(lb.getStats(), decoded.getStats());
+        assertEquals(games.length, decoded.getStats().gamesPlayed());
+    }
+
+    @Test
+    void dataWithoutStatsFallsBackToTheEntries() {
+        Leaderboard decoded = Leaderboard.decode("1002,16,3;1001,12,15;1000,15,9");
+        assertFalse(decoded.hasStoredStats());
+        assertEquals(3, decoded.getStats().gamesPlayed());
+        assertEquals(2, decoded.getStats().wins(0));
+        assertEquals(3, decoded.getEntries().size());
+    }
+
+    @Test
+    void damagedStatsFallBackToTheEntries() {
+        Leaderboard decoded = Leaderboard.decode("1001,12,15;1000,15,9#S1:2,1,oops");
+        assertFalse(decoded.hasStoredStats());
+        assertEquals(2, decoded.getStats().gamesPlayed());
+    }
+
+    private static void assertSameStats(LeaderboardStats a, LeaderboardStats b) {
+        assertEquals(a.gamesPlayed(), b.gamesPlayed());
+        assertEquals(a.ties(), b.ties());
+        for (int seat = 0; seat < 2; seat++) {
+            assertEquals(a.wins(seat), b.wins(seat));
+            assertEquals(a.meanVp(seat), b.meanVp(seat));
+            assertEquals(a.vpVariance(seat), b.vpVariance(seat));
+            assertEquals(a.longestWinStreak(seat), b.longestWinStreak(seat));
+        }
+        for (double q = 0; q <= 1; q += 0.125) assertEquals(a.marginQuantile(q), b.marginQuantile(q));
+    }
+}
@@ -0,0 +1,43 @@
+package domain;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LegalMovesTest {
+    @Test
+    void everyGeneratedMoveIsAccepted() {
+        Game g = Game.newUnsaved();
+        int[] moves = new int[LegalMoves.maxMoves(g)];
+        for (int turn = 0; turn < 40 && !g.isGameOver(); turn++) {
+            int n = LegalMoves.generate(g, moves);
+            assertTrue(n > 0);
+            assertEquals(MoveResult.OK, LegalMoves.apply(g, moves[turn % n]));
+        }
+    }
+
+    @Test
+    void takingAChipAtTheLimitIsRejectedNotThrown() {
+        Game g = Game.newUnsaved();
+        g.getPlayer(0).addChip(ChipColor.RED, PackedChips.MAX_CHIPS);
+
+        assertEquals(MoveResult.CHIP_LIMIT, g.tryTakeChip(ChipColor.RED));
+        assertEquals(PackedChips.MAX_CHIPS, g.getPlayer(0).getChips(ChipColor.RED));
+        assertEquals(MoveResult.OK, g.tryTakeChip(ChipColor.BLUE));
+    }
+
+    @Test
+    void colorsAtTheLimitAreNotGenerated() {
+        Game g = Game.newUnsaved();
+        g.getPlayer(0).addChip(ChipColor.RED, PackedChips.MAX_CHIPS);
+
+        int[] moves = new int[LegalMoves.maxMoves(g)];
+        int n = LegalMoves.generate(g, moves);
+        for (int i = 0; i < n; i++) {
+            if (LegalMoves.type(moves[i]) == LegalMoves.TAKE_CHIP) {
+                assertNotEquals(ChipColor.RED, LegalMoves.color(moves[i]));
+            }
+            assertEquals(MoveResult.OK, LegalMoves.apply(g.copyUnsaved(), moves[i]));
+        }
+    }
+}
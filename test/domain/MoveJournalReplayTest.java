@@ -0,0 +1,145 @@
+package domain;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import storage.FileMoveJournal;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoveJournalReplayTest {
+    private static final class MemorySnapshots implements SnapshotStore {
+        String snapshot;
+        @Override public void saveSnapshot(String s) { snapshot = s; }
+        @Override public String loadSnapshotOrNull() { return snapshot; }
+        @Override public void clear() { snapshot = null; }
+    }
+
+    private static final class MemoryLeaderboard implements LeaderboardStore {
+        String data;
+        @Override public void saveLeaderboard(String d) { data = d; }
+        @Override public String loadLeaderboardOrNull() { return data; }
+    }
+
+    // clearing can be made to "crash" so the records stay behind
+    private static final class MemoryJournal implements MoveJournal {
+        final List<String> records = new ArrayList<>();
+        boolean crashBeforeClear;
+        @Override public void append(String r) { records.add(r); }
+        @Override public List<String> loadRecords() { return new ArrayList<>(records); }
+        @Override public void clear() { if (!crashBeforeClear) records.clear(); }
+    }
+
+    private final MemorySnapshots snapshots = new MemorySnapshots();
+    private final MemoryLeaderboard leaderboard = new MemoryLeaderboard();
+    private final MemoryJournal journal = new MemoryJournal();
+
+    @Test
+    void replaysMovesMadeSinceTheCheckpoint() {
+        Game g = Game.loadOrNew(snapshots, leaderboard, journal, 4);
+        play(g, "RBGKK");
+
+        Game loaded = Game.loadOrNew(snapshots, leaderboard, journal, 4);
+        assertTrue(loaded.samePositionAs(g));
+    }
+
+    @Test
+    void skipsRecordsAlreadyInTheCheckpoint() {
+        Game g = Game.loadOrNew(snapshots, leaderboard, journal, 2);
+        play(g, "R");
+        journal.crashBeforeClear = true; // B's checkpoint is durable, but R and B stay in the journal
+        play(g, "B");
+        journal.crashBeforeClear = false;
+        play(g, "G");
+        assertEquals(3, journal.records.size());
+
+        Game loaded = Game.loadOrNew(snapshots, leaderboard, journal, 2);
+        assertTrue(loaded.samePositionAs(g));
+        assertEquals(1, loaded.getPlayer(0).getChips(ChipColor.RED));
+    }
+
+    @Test
+    void undoAndRedoAreJournaledWithoutACheckpoint() {
+        Game g = Game.loadOrNew(snapshots, leaderboard, journal, 100);
+        String checkpoint = snapshots.snapshot;
+        play(g, "RBG");
+        assertTrue(g.undo());
+        assertTrue(g.undo());
+        assertTrue(g.redo());
+        assertSame(checkpoint, snapshots.snapshot);
+
+        Game loaded = Game.loadOrNew(snapshots, leaderboard, journal, 100);
+        assertTrue(loaded.samePositionAs(g));
+        assertEquals(1, loaded.getPlayer(0).getChips(ChipColor.BLUE));
+        assertEquals(0, loaded.getPlayer(0).getChips(ChipColor.GREEN));
+    }
+
+    @Test
+    void aTornStateRecordEndsTheReplay() {
+        Game g = Game.loadOrNew(snapshots, leaderboard, journal, 100);
+        play(g, "RB");
+        g.undo();
+        int last = journal.records.size() - 1;
+        String undo = journal.records.get(last);
+        journal.records.set(last, undo.substring(0, undo.length() / 2));
+
+        Game loaded = Game.loadOrNew(snapshots, leaderboard, journal, 100);
+        assertEquals(1, loaded.getPlayer(0).getChips(ChipColor.BLUE));
+    }
+
+    @Test
+    void undoKeepsOnlyTheLatestVersions() {
+        Game g = Game.loadOrNew(snapshots, leaderboard, journal, 100);
+        for (int i = 0; i < Game.MAX_UNDO + 10; i++) g.takeChip(ChipColor.values()[i % 3]);
+        int undone = 0;
+        while (g.undo()) undone++;
+        assertEquals(Game.MAX_UNDO, undone);
+    }
+
+    @Test
+    void aTornTailIsCheckpointedSoLaterMovesReplay() {
+        Game g = Game.loadOrNew(snapshots, leaderboard, journal, 100);
+        play(g, "R");
+        journal.records.add("2 T"); // cut short by a crash
+
+        Game loaded = Game.loadOrNew(snapshots, leaderboard, journal, 100);
+        assertTrue(journal.records.isEmpty());
+        play(loaded, "BG");
+
+        Game again = Game.loadOrNew(snapshots, leaderboard, journal, 100);
+        assertTrue(again.samePositionAs(loaded));
+        assertEquals(1, again.getPlayer(0).getChips(ChipColor.GREEN));
+    }
+
+    @Test
+    void aTornLineInAFileJournalDoesNotSwallowLaterMoves(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("minisplendor.journal");
+        FileMoveJournal fileJournal = new FileMoveJournal(file);
+        Game g = Game.loadOrNew(snapshots, leaderboard, fileJournal, 100);
+        play(g, "R");
+        fileJournal.close();
+        Files.writeString(file, "2 T", StandardOpenOption.APPEND);
+
+        fileJournal = new FileMoveJournal(file);
+        Game loaded = Game.loadOrNew(snapshots, leaderboard, fileJournal, 100);
+        play(loaded, "BG");
+        fileJournal.close();
+
+        fileJournal = new FileMoveJournal(file);
+        Game again = Game.loadOrNew(snapshots, leaderboard, fileJournal, 100);
+        fileJournal.close();
+        assertTrue(again.samePositionAs(loaded));
+        assertEquals(1, again.getPlayer(0).getChips(ChipColor.RED));
+        assertEquals(1, again.getPlayer(0).getChips(ChipColor.GREEN));
+    }
+
+    private static void play(Game g, String chips) {
+        for (char c : chips.toCharArray()) g.takeChip(ChipColor.fromChar(c));
+    }
+}
@@ -0,0 +1,68 @@
+package storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChannelSnapshotStoreTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void snapshotsSurviveReopen() {
+        ChannelSnapshotStore s = new ChannelSnapshotStore(dir);
+        s.saveSnapshot("first");
+        s.saveSnapshot(ByteBuffer.wrap("second".getBytes(StandardCharsets.ISO_8859_1)));
+        s.close();
+
+        s = new ChannelSnapshotStore(dir);
+        assertEquals("second", s.loadSnapshotOrNull());
+        s.clear();
+        s.close();
+
+        s = new ChannelSnapshotStore(dir);
+        assertNull(s.loadSnapshotOrNull());
+        s.close();
+    }
+
+    @Test
+    void aTornNewestCopyFallsBackToTheOlderOne() throws IOException {
+        ChannelSnapshotStore s = new ChannelSnapshotStore(dir);
+        s.saveSnapshot("older");
+        s.saveSnapshot("newer");
+        s.close();
+
+        Path newest = dir.resolve("snapshot-a.bin"); // saves alternate, starting with b
+        byte[] bytes = Files.readAllBytes(newest);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(newest, bytes);
+
+        s = new ChannelSnapshotStore(dir);
+        assertEquals("older", s.loadSnapshotOrNull());
+        s.close();
+    }
+
+    @Test
+    void aCorruptSequenceNumberCannotMakeAnOldCopyTheNewest() throws IOException {
+        ChannelSnapshotStore s = new ChannelSnapshotStore(dir);
+        s.saveSnapshot("older");
+        s.saveSnapshot("newer");
+        s.close();
+
+        Path older = dir.resolve("snapshot-b.bin");
+        byte[] bytes = Files.readAllBytes(older);
+        bytes[0] ^= 0x10; // seq now far above the newer copy's
+        Files.write(older, bytes);
+
+        s = new ChannelSnapshotStore(dir);
+        assertEquals("newer", s.loadSnapshotOrNull());
+        s.close();
+    }
+}
@@ -0,0 +1,67 @@
+package storage;
+
+import domain.GameHistory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileGameHistoryStoreTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void appendsSurviveReopen() {
+        Path file = dir.resolve("h/minisplendor.history");
+        FileGameHistoryStore s = new FileGameHistoryStore(file);
+        s.append(1000, 15, 9);
+        s.append(2000, 3, 16);
+        s.close();
+
+        GameHistory h = load(file);
+        assertEquals(2, h.size());
+        assertEquals(16, h.player2VpAt(1));
+        assertEquals(2000, h.timestampAt(1));
+    }
+
+    @Test
+    void aTornLastRecordIsDroppedAndOverwritten() throws IOException {
+        Path file = dir.resolve("minisplendor.history");
+        FileGameHistoryStore s = new FileGameHistoryStore(file);
+        s.append(1000, 15, 9);
+        s.close();
+        Files.write(file, new byte[] { 1, 2, 3 }, StandardOpenOption.APPEND);
+
+        assertEquals(1, load(file).size());
+
+        s = new FileGameHistoryStore(file);
+        s.append(2000, 4, 15);
+        s.close();
+        GameHistory h = load(file);
+        assertEquals(2, h.size());
+        assertEquals(4, h.player1VpAt(1));
+    }
+
+    @Test
+    void missingFileLoadsNothing() {
+        FileGameHistoryStore s = new FileGameHistoryStore(dir.resolve("none.history"));
+        GameHistory h = new GameHistory();
+        s.loadInto(h);
+        s.close();
+        assertTrue(h.isEmpty());
+        assertFalse(Files.exists(dir.resolve("none.history")));
+    }
+
+    private static GameHistory load(Path file) {
+        FileGameHistoryStore s = new FileGameHistoryStore(file);
+        GameHistory h = new GameHistory();
+        s.loadInto(h);
+        s.close();
+        return h;
+    }
+}
@@ -0,0 +1,10 @@
+package storage;
+
+import java.nio.file.Path;
+
+class FileKeyValueStoreTest extends KeyValueStoreContract {
+    @Override
+    KeyValueStore create(Path dir) {
+        return new FileKeyValueStore(dir.resolve("store.properties"));
+    }
+}
@@ -0,0 +1,97 @@
+package storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Behavior every KeyValueStore must have; each store's test extends this.
+abstract class KeyValueStoreContract {
+    @TempDir
+    Path dir;
+
+    private final List<KeyValueStore> opened = new ArrayList<>();
+
+    // A store over dir; opening it again must see what the last one wrote
+    abstract KeyValueStore create(Path dir);
+
+    KeyValueStore open() {
+        KeyValueStore s = create(dir);
+        opened.add(s);
+        return s;
+    }
+
+    KeyValueStore reopen(KeyValueStore s) {
+        s.close();
+        return open();
+    }
+
+    @AfterEach
+    void closeAll() {
+        for (KeyValueStore s : opened) s.close();
+    }
+
+    @Test
+    void missingKeyIsNull() {
+        assertNull(open().getOrNull("nope"));
+    }
+
+    @Test
+    void putThenGet() {
+        KeyValueStore s = open();
+        s.put("a", "1");
+        s.put("b", "two");
+        assertEquals("1", s.getOrNull("a"));
+        assertEquals("two", s.getOrNull("b"));
+    }
+
+    @Test
+    void overwriteReplacesValueOfAnySize() {
+        KeyValueStore s = open();
+        s.put("k", "short");
+        s.put("k", "x".repeat(5000));
+        assertEquals("x".repeat(5000), s.getOrNull("k"));
+        s.put("k", "");
+        assertEquals("", s.getOrNull("k"));
+    }
+
+    @Test
+    void removeDeletes() {
+        KeyValueStore s = open();
+        s.put("k", "v");
+        s.remove("k");
+        assertNull(s.getOrNull("k"));
+        s.remove("never-there");
+    }
+
+    @Test
+    void valuesSurviveReopen() {
+        KeyValueStore s = open();
+        s.put("a", "1");
+        s.put("b", "2");
+        s.put("a", "3");
+        s.remove("b");
+        s.put("unicode", "Ünïcødé ✓\nline=two");
+
+        s = reopen(s);
+        assertEquals("3", s.getOrNull("a"));
+        assertNull(s.getOrNull("b"));
+        assertEquals("Ünïcødé ✓\nline=two", s.getOrNull("unicode"));
+    }
+
+    @Test
+    void manyWritesKeepOnlyTheLatest() {
+        KeyValueStore s = open();
+        for (int i = 0; i < 2000; i++) s.put("key" + (i % 10), "value" + i + "-".repeat(i % 300));
+        s = reopen(s);
+        for (int k = 0; k < 10; k++) {
+            int last = 1990 + k;
+            assertEquals("value" + last + "-".repeat(last % 300), s.getOrNull("key" + k));
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogKeyValueStoreTest extends KeyValueStoreContract {
+    @Override
+    KeyValueStore create(Path dir) {
+        return new LogKeyValueStore(dir.resolve("kv-log"));
+    }
+
+    @Test
+    @Timeout(30)
+    void writersWaitingOnASyncStopWhenTheStoreCloses() throws InterruptedException {
+        KeyValueStore s = open();
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            String key = "k" + t;
+            Thread w = new Thread(() -> {
+                try {
+                    for (int i = 0; ; i++) s.put(key, "v" + i);
+                } catch (IllegalStateException closed) {
+                    // expected once close() has run
+                }
+            });
+            w.setDaemon(true);
+            w.start();
+            writers.add(w);
+        }
+        Thread.sleep(50);
+        s.close();
+        for (Thread w : writers) {
+            w.join(5_000);
+            assertFalse(w.isAlive(), "a writer kept spinning after close()");
+        }
+        assertNull(((LogKeyValueStore) s).compactionFailure());
+    }
+
+    @Test
+    void aTornTailIsCutOffAndLaterWritesSurvive() throws IOException {
+        KeyValueStore s = open();
+        s.put("a", "1");
+        s.put("b", "2");
+        s.close();
+
+        Path segment = newestSegment();
+        long good = Files.size(segment);
+        Files.write(segment, new byte[] { 0, 0, 0, 0, 1, 0, 0 }, StandardOpenOption.APPEND);
+
+        s = open();
+        assertEquals(good, Files.size(segment));
+        assertEquals("2", s.getOrNull("b"));
+        s.put("c", "3");
+
+        s = reopen(s);
+        assertEquals("1", s.getOrNull("a"));
+        assertEquals("3", s.getOrNull("c"));
+    }
+
+    @Test
+    void aCrashBeforeTheCompactedSegmentIsRenamedKeepsTheOldSegments() throws IOException {
+        KeyValueStore s = open();
+        s.put("a", "1");
+        s.put("a", "2");
+        s.close();
+
+        // What compaction leaves behind if it dies before the rename
+        Path tmp = dir.resolve("kv-log").resolve("seg-00000002.log.tmp");
+        Files.write(tmp, new byte[] { 'L', 'K', 'V', 'S', 1, 'x' });
+
+        s = open();
+        assertFalse(Files.exists(tmp));
+        assertEquals("2", s.getOrNull("a"));
+    }
+
+    @Test
+    void strayFilesThatLookLikeSegmentsAreIgnored() throws IOException {
+        Path kvDir = dir.resolve("kv-log");
+        Files.createDirectories(kvDir);
+        Files.writeString(kvDir.resolve("seg-old.log"), "keep me");
+
+        KeyValueStore s = open();
+        s.put("a", "1");
+        assertEquals("1", reopen(s).getOrNull("a"));
+        assertEquals("keep me", Files.readString(kvDir.resolve("seg-old.log")));
+    }
+
+    @Test
+    @Timeout(60)
+    void everyAcknowledgedGroupCommitIsDurable() throws InterruptedException {
+        KeyValueStore s = open();
+        int threads = 8;
+        int perThread = 200;
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            Thread w = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) s.put("t" + thread + "-" + i, "v" + i);
+            });
+            w.start();
+            writers.add(w);
+        }
+        for (Thread w : writers) w.join();
+
+        // No close(): what the writers were told is on disk must be there
+        KeyValueStore r = new LogKeyValueStore(dir.resolve("kv-log"));
+        for (int t = 0; t < threads; t++) {
+            for (int i = 0; i < perThread; i++) assertEquals("v" + i, r.getOrNull("t" + t + "-" + i));
+        }
+        r.close();
+    }
+
+    @Test
+    void compactionCountsTheGarbageWrittenMeanwhile() throws InterruptedException {
+        Path kvDir = dir.resolve("kv-log");
+        LogKeyValueStore s = new LogKeyValueStore(kvDir, 0.5, false);
+        for (int i = 0; i < 20_000; i++) s.put("k" + (i % 50), "value " + i);
+        s.awaitCompaction();
+        long dead = s.deadRecords();
+        s.close();
+
+        LogKeyValueStore r = new LogKeyValueStore(kvDir, 0.5, false);
+        assertEquals(r.deadRecords(), dead);
+        r.close();
+    }
+
+    private Path newestSegment() throws IOException {
+        try (Stream<Path> files = Files.list(dir.resolve("kv-log"))) {
+            return files.filter(p -> p.getFileName().toString().endsWith(".log")).max(Path::compareTo).orElseThrow();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedKeyValueStoreTest extends KeyValueStoreContract {
+    @Override
+    KeyValueStore create(Path dir) {
+        return new MappedKeyValueStore(file(dir));
+    }
+
+    private static Path file(Path dir) {
+        return dir.resolve("store.kv");
+    }
+
+    @Test
+    void tornWriteKeepsThePreviousValue() throws IOException {
+        KeyValueStore s = open();
+        s.put("k", "old");
+        s.put("k", "new value");
+        s.close();
+
+        // Corrupt the newest slot's value, as a crash mid-write would
+        try (FileChannel ch = FileChannel.open(file(dir), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(4);
+            ch.read(header, 8);
+            int end = header.flip().getInt();
+            ch.write(ByteBuffer.wrap(new byte[] { 'X' }), end - 8);
+        }
+
+        assertEquals("old", open().getOrNull("k"));
+    }
+
+    @Test
+    void compactionReclaimsSupersededSlots() throws IOException {
+        MappedKeyValueStore s = (MappedKeyValueStore) open();
+        String big = "v".repeat(1000);
+        for (int i = 0; i < 1000; i++) s.put("k" + (i % 3), big + i);
+        s.put("gone", "x");
+        s.remove("gone");
+
+        assertTrue(s.wastedBytes() <= 64 * 1024 + 2048, "compaction keeps waste bounded");
+        s.compact();
+        assertEquals(0, s.wastedBytes());
+        assertTrue(Files.size(file(dir)) <= 64 * 1024);
+
+        KeyValueStore r = reopen(s);
+        assertEquals(big + 999, r.getOrNull("k0"));
+        assertEquals(big + 998, r.getOrNull("k2"));
+        assertNull(r.getOrNull("gone"));
+    }
+
+    @Test
+    void aFileThatIsNotAStoreIsRejectedNotWiped() throws IOException {
+        byte[] foreign = "not a key-value store, keep me".getBytes();
+        Files.write(file(dir), foreign);
+
+        assertThrows(RuntimeException.class, this::open);
+        assertArrayEquals(foreign, Files.readAllBytes(file(dir)));
+    }
+
+    @Test
+    void failedCompactionLeavesTheStoreUsable() throws IOException {
+        MappedKeyValueStore s = (MappedKeyValueStore) open();
+        s.put("k", "v1");
+        s.put("k", "v2");
+        Path tmp = dir.resolve("store.kv.compact");
+        Files.createDirectories(tmp.resolve("blocker")); // cannot be opened as the copy
+
+        assertThrows(RuntimeException.class, s::compact);
+        assertEquals("v2", s.getOrNull("k"));
+        s.put("k", "v3");
+
+        Files.delete(tmp.resolve("blocker"));
+        Files.delete(tmp);
+        s.compact();
+        assertEquals("v3", reopen(s).getOrNull("k"));
+    }
+}
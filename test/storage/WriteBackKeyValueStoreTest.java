@@ -0,0 +1,10 @@
+package storage;
+
+import java.nio.file.Path;
+
+class WriteBackKeyValueStoreTest extends KeyValueStoreContract {
+    @Override
+    KeyValueStore create(Path dir) {
+        return new WriteBackKeyValueStore(new FileKeyValueStore(dir.resolve("store.properties")), 0);
+    }
+}